@@ -24,11 +24,11 @@ import pw.phylame.commons.util.MiscUtils;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.text.NumberFormat;
-import java.text.ParseException;
-import java.util.Date;
-import java.util.Locale;
-import java.util.Map;
+import java.text.ParsePosition;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public final class Converters {
     private Converters() {
@@ -36,9 +36,26 @@ public final class Converters {
 
     private static final Map<Class<?>, Converter<?>> converters = new ConcurrentHashMap<>();
 
+    /**
+     * Version of registry, increased when converters changed.
+     */
+    private static final AtomicInteger version = new AtomicInteger();
+
+    /**
+     * Converters resolved in type hierarchy of each class.
+     */
+    private static final ClassValue<AtomicReference<Resolution>> resolutions = new ClassValue<AtomicReference<Resolution>>() {
+        @Override
+        protected AtomicReference<Resolution> computeValue(Class<?> type) {
+            return new AtomicReference<>(Resolution.NONE);
+        }
+    };
+
     @SuppressWarnings("unchecked")
     public static <T> Converter<T> register(@NonNull Class<T> type, @NonNull Converter<? extends T> converter) {
-        return (Converter<T>) converters.put(type, converter);
+        val prev = (Converter<T>) converters.put(type, converter);
+        version.incrementAndGet();
+        return prev;
     }
 
     public static <T> boolean isRegistered(Class<T> type) {
@@ -50,12 +67,60 @@ public final class Converters {
         return (Converter<T>) converters.get(type);
     }
 
+    /**
+     * Returns converter for specified type or its nearest super type.
+     * <p>
+     * Super classes are searched before interfaces. Result for each type is cached and
+     * refreshed after converters registered.
+     *
+     * @param type the type
+     * @return the converter or {@code null} if not found
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Converter<? super T> resolve(@NonNull Class<T> type) {
+        val ref = resolutions.get(type);
+        Resolution resolution = ref.get();
+        val current = version.get();
+        if (resolution.version != current) {
+            // version is read before lookup, a racing register leaves this result outdated
+            resolution = new Resolution(current, lookup(type));
+            ref.set(resolution);
+        }
+        return (Converter<? super T>) resolution.converter;
+    }
+
+    private static Converter<?> lookup(Class<?> type) {
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            val conv = converters.get(c);
+            if (conv != null) {
+                return conv;
+            }
+        }
+        val visited = new HashSet<Class<?>>();
+        val queue = new ArrayDeque<Class<?>>();
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            Collections.addAll(queue, c.getInterfaces());
+        }
+        while (!queue.isEmpty()) {
+            val c = queue.poll();
+            if (!visited.add(c)) {
+                continue;
+            }
+            val conv = converters.get(c);
+            if (conv != null) {
+                return conv;
+            }
+            Collections.addAll(queue, c.getInterfaces());
+        }
+        return null;
+    }
+
     public static <T> String render(@NonNull T o, @NonNull Class<T> type) {
         return render(o, type, null);
     }
 
     public static <T> String render(@NonNull T o, @NonNull Class<T> type, String fallback) {
-        val conv = forType(type);
+        val conv = resolve(type);
         return conv != null ? conv.render(o) : fallback;
     }
 
@@ -63,11 +128,275 @@ public final class Converters {
         return parse(str, clazz, null);
     }
 
+    /**
+     * Parses string to specified type.
+     * <p>
+     * If no converter registered for the type, converter of super type is used and its
+     * result is returned only when it is instance of the type.
+     */
     public static <T> T parse(@NonNull String str, @NonNull Class<T> clazz, T fallback) {
         val conv = forType(clazz);
-        return conv != null ? conv.parse(str) : fallback;
+        if (conv != null) {
+            return conv.parse(str);
+        }
+        val sc = resolve(clazz);
+        if (sc == null) {
+            return fallback;
+        }
+        val value = sc.parse(str);
+        return clazz.isInstance(value) ? clazz.cast(value) : fallback;
+    }
+
+    /**
+     * Converter resolved at a registry version, published as a whole.
+     */
+    private static final class Resolution {
+        private static final Resolution NONE = new Resolution(-1, null);
+
+        /**
+         * Registry version when resolved, -1 for never resolved.
+         */
+        private final int version;
+
+        private final Converter<?> converter;
+
+        private Resolution(int version, Converter<?> converter) {
+            this.version = version;
+            this.converter = converter;
+        }
+    }
+
+    public static boolean parseBoolean(CharSequence cs, boolean fallback) {
+        return cs != null ? parseBoolean(cs, 0, cs.length(), fallback) : fallback;
+    }
+
+    /**
+     * Parses {@literal true} or {@literal false} (ignoring case) in specified range of string.
+     *
+     * @param cs       the string
+     * @param start    start index of the range, inclusive
+     * @param end      end index of the range, exclusive
+     * @param fallback value returned if the range is not a boolean
+     * @return the boolean value or {@code fallback}
+     */
+    public static boolean parseBoolean(@NonNull CharSequence cs, int start, int end, boolean fallback) {
+        if (!isValidRange(cs, start, end)) {
+            return fallback;
+        }
+        if (regionMatches(cs, start, end, "true")) {
+            return true;
+        } else if (regionMatches(cs, start, end, "false")) {
+            return false;
+        }
+        return fallback;
+    }
+
+    public static int parseInt(CharSequence cs, int fallback) {
+        return cs != null ? parseInt(cs, 0, cs.length(), fallback) : fallback;
+    }
+
+    /**
+     * Parses decimal integer in specified range of string without throwing exception.
+     * <p>
+     * Only ASCII digits with optional leading sign are accepted.
+     *
+     * @param cs       the string
+     * @param start    start index of the range, inclusive
+     * @param end      end index of the range, exclusive
+     * @param fallback value returned if the range is not an integer or overflows
+     * @return the integer value or {@code fallback}
+     */
+    public static int parseInt(@NonNull CharSequence cs, int start, int end, int fallback) {
+        if (!isValidRange(cs, start, end)) {
+            return fallback;
+        }
+        int i = start;
+        val ch = cs.charAt(i);
+        val negative = ch == '-';
+        if ((negative || ch == '+') && ++i == end) {
+            return fallback;
+        }
+        // accumulating negatively like Integer.parseInt to reach MIN_VALUE
+        val limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        val min = limit / 10;
+        int result = 0;
+        for (; i < end; ++i) {
+            val digit = cs.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < min) {
+                return fallback;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return fallback;
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
     }
 
+    public static long parseLong(CharSequence cs, long fallback) {
+        return cs != null ? parseLong(cs, 0, cs.length(), fallback) : fallback;
+    }
+
+    /**
+     * Parses decimal long integer in specified range of string without throwing exception.
+     *
+     * @param cs       the string
+     * @param start    start index of the range, inclusive
+     * @param end      end index of the range, exclusive
+     * @param fallback value returned if the range is not an integer or overflows
+     * @return the long value or {@code fallback}
+     * @see #parseInt(CharSequence, int, int, int)
+     */
+    public static long parseLong(@NonNull CharSequence cs, int start, int end, long fallback) {
+        if (!isValidRange(cs, start, end)) {
+            return fallback;
+        }
+        int i = start;
+        val ch = cs.charAt(i);
+        val negative = ch == '-';
+        if ((negative || ch == '+') && ++i == end) {
+            return fallback;
+        }
+        val limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        val min = limit / 10;
+        long result = 0;
+        for (; i < end; ++i) {
+            val digit = cs.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < min) {
+                return fallback;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return fallback;
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    public static double parseDouble(CharSequence cs, double fallback) {
+        return cs != null ? parseDouble(cs, 0, cs.length(), fallback) : fallback;
+    }
+
+    /**
+     * Parses decimal floating number in specified range of string without throwing exception.
+     * <p>
+     * Accepted form is {@code [+-]digits[.digits][(e|E)[+-]digits]}, at least one digit
+     * is required before or after the point. Values with at most 15 significant digits and
+     * small exponent are computed directly, others are delegated to {@link Double#parseDouble(String)}.
+     *
+     * @param cs       the string
+     * @param start    start index of the range, inclusive
+     * @param end      end index of the range, exclusive
+     * @param fallback value returned if the range is not a number
+     * @return the double value or {@code fallback}
+     */
+    public static double parseDouble(@NonNull CharSequence cs, int start, int end, double fallback) {
+        if (!isValidRange(cs, start, end)) {
+            return fallback;
+        }
+        int i = start;
+        char ch = cs.charAt(i);
+        val negative = ch == '-';
+        if (negative || ch == '+') {
+            ++i;
+        }
+        long mantissa = 0;
+        int digits = 0, significant = 0, scale = 0;
+        boolean point = false;
+        for (; i < end; ++i) {
+            ch = cs.charAt(i);
+            if (ch >= '0' && ch <= '9') {
+                ++digits;
+                if (significant < MAX_FAST_DIGITS) {
+                    if (mantissa != 0 || ch != '0') {
+                        ++significant;
+                    }
+                    mantissa = mantissa * 10 + (ch - '0');
+                    if (point) {
+                        --scale;
+                    }
+                } else {
+                    ++significant; // too many digits for fast path
+                    if (!point) {
+                        ++scale;
+                    }
+                }
+            } else if (ch == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return fallback;
+        }
+        if (i < end) {
+            if (ch != 'e' && ch != 'E' || ++i == end) {
+                return fallback;
+            }
+            ch = cs.charAt(i);
+            val negativeExp = ch == '-';
+            if ((negativeExp || ch == '+') && ++i == end) {
+                return fallback;
+            }
+            int exp = 0;
+            for (; i < end; ++i) {
+                ch = cs.charAt(i);
+                if (ch < '0' || ch > '9') {
+                    return fallback;
+                }
+                if (exp < 100000) {
+                    exp = exp * 10 + (ch - '0');
+                }
+            }
+            scale += negativeExp ? -exp : exp;
+        }
+        if (significant <= MAX_FAST_DIGITS && Math.abs(scale) < POWERS_OF_TEN.length) {
+            // both mantissa and power of ten are exact, so the result is correctly rounded
+            val value = scale < 0 ? mantissa / POWERS_OF_TEN[-scale] : mantissa * POWERS_OF_TEN[scale];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(cs.subSequence(start, end).toString());
+    }
+
+    /**
+     * Max digits of mantissa in fast path, less than 2^53.
+     */
+    private static final int MAX_FAST_DIGITS = 15;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static boolean isValidRange(CharSequence cs, int start, int end) {
+        return start >= 0 && start < end && end <= cs.length();
+    }
+
+    private static boolean regionMatches(CharSequence cs, int start, int end, String str) {
+        if (end - start != str.length()) {
+            return false;
+        }
+        for (int i = start, j = 0; i < end; ++i, ++j) {
+            if (Character.toLowerCase(cs.charAt(i)) != str.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Number format for each thread, {@code NumberFormat} is not thread-safe.
+     */
+    private static final ThreadLocal<NumberFormat> numberFormat = new ThreadLocal<NumberFormat>() {
+        @Override
+        protected NumberFormat initialValue() {
+            return NumberFormat.getInstance();
+        }
+    };
+
     static {
         val sc = new AbstractConverter<String>() {
             @Override
@@ -159,11 +488,12 @@ public final class Converters {
         register(Number.class, new AbstractConverter<Number>() {
             @Override
             public Number parse(String str) {
-                try {
-                    return NumberFormat.getInstance().parse(str);
-                } catch (ParseException e) {
-                    throw new NumberFormatException(e.getMessage());
+                val pos = new ParsePosition(0);
+                val number = numberFormat.get().parse(str, pos);
+                if (pos.getIndex() == 0) {
+                    throw new NumberFormatException("Unparseable number: \"" + str + "\"");
                 }
+                return number;
             }
         });
         register(Locale.class, new Converter<Locale>() {
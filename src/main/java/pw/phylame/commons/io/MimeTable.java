@@ -0,0 +1,164 @@
+/*
+ * Copyright 2017 Peng Wan <phylame@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pw.phylame.commons.io;
+
+import lombok.NonNull;
+import lombok.val;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable table mapping file extension to MIME type.
+ * <p>
+ * Extensions are case-insensitive, lookup can be done on a region of {@code CharSequence}
+ * without creating string. Updating returns a new table.
+ */
+public final class MimeTable {
+    public static final MimeTable EMPTY = new MimeTable(Collections.<String, String>emptyMap());
+
+    private final String[] keys;
+
+    private final String[] values;
+
+    private final int mask;
+
+    private final Map<String, String> map;
+
+    private MimeTable(Map<String, String> map) {
+        this.map = map;
+        int capacity = 8;
+        while (capacity < map.size() * 2) {
+            capacity <<= 1;
+        }
+        keys = new String[capacity];
+        values = new String[capacity];
+        mask = capacity - 1;
+        for (val e : map.entrySet()) {
+            val key = e.getKey();
+            int i = hash(key, 0, key.length()) & mask;
+            while (keys[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = e.getValue();
+        }
+    }
+
+    /**
+     * Creates table from mapping of extension to MIME, entries with non-string key or value are ignored.
+     */
+    public static MimeTable of(@NonNull Map<?, ?> m) {
+        return EMPTY.withAll(m);
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * Returns MIME for the extension, or {@code null} if not found.
+     */
+    public String get(@NonNull CharSequence ext) {
+        return get(ext, 0, ext.length());
+    }
+
+    /**
+     * Returns MIME for the extension in specified region.
+     *
+     * @param cs    the string
+     * @param start start of the extension, inclusive
+     * @param end   end of the extension, exclusive
+     * @return the MIME, or {@code null} if not found
+     */
+    public String get(@NonNull CharSequence cs, int start, int end) {
+        int i = hash(cs, start, end) & mask;
+        String key;
+        while ((key = keys[i]) != null) {
+            if (matches(key, cs, start, end)) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    public MimeTable with(@NonNull String ext, @NonNull String mime) {
+        val m = new HashMap<String, String>(map);
+        m.put(lower(ext), mime);
+        return new MimeTable(m);
+    }
+
+    public MimeTable withAll(@NonNull Map<?, ?> entries) {
+        val m = new HashMap<String, String>(map);
+        for (val e : entries.entrySet()) {
+            if (e.getKey() instanceof String && e.getValue() instanceof String) {
+                m.put(lower((String) e.getKey()), (String) e.getValue());
+            }
+        }
+        return new MimeTable(m);
+    }
+
+    /**
+     * Returns the mapping as unmodifiable map.
+     */
+    public Map<String, String> toMap() {
+        return Collections.unmodifiableMap(map);
+    }
+
+    private static int hash(CharSequence cs, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; ++i) {
+            h = 31 * h + lower(cs.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(String key, CharSequence cs, int start, int end) {
+        val length = key.length();
+        if (end - start != length) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (key.charAt(i) != lower(cs.charAt(start + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String lower(String str) {
+        val chars = str.toCharArray();
+        for (int i = 0; i < chars.length; ++i) {
+            chars[i] = lower(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private static char lower(char ch) {
+        if (ch < 0x80) {
+            return ch >= 'A' && ch <= 'Z' ? (char) (ch + ('a' - 'A')) : ch;
+        }
+        return Character.toLowerCase(ch);
+    }
+
+    @Override
+    public String toString() {
+        return map.toString();
+    }
+}
@@ -18,19 +18,21 @@ package pw.phylame.commons.io;
 
 import lombok.NonNull;
 import lombok.val;
-import pw.phylame.commons.function.Provider;
+import pw.phylame.commons.log.Log;
 import pw.phylame.commons.util.CollectionUtils;
 import pw.phylame.commons.util.StringUtils;
-import pw.phylame.commons.value.Lazy;
 import pw.phylame.commons.value.Pair;
 
+import java.io.IOException;
+import java.nio.charset.Charset;
 import java.util.Map;
-import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Utilities for file name operations.
  */
 public final class PathUtils {
+    private static final String TAG = "PATHs";
 
     private PathUtils() {
     }
@@ -40,68 +42,204 @@ public final class PathUtils {
      */
     public static final String UNKNOWN_MIME = "application/octet-stream";
 
+    /**
+     * Returns index of last separator and index of extension dot.
+     *
+     * @see PathView
+     */
     public static Pair<Integer, Integer> split(@NonNull String path) {
-        int extpos = path.length(), seppos;
-        char ch;
-        boolean extFound = false;
-        for (seppos = extpos - 1; seppos >= 0; --seppos) {
-            ch = path.charAt(seppos);
-            if (ch == '.' && !extFound) {
-                extpos = seppos;
-                extFound = true;
-            } else if (ch == '/' || ch == '\\') {
-                break;
+        val view = new PathView(path);
+        return new Pair<>(view.sepIndex(), view.dotIndex());
+    }
+
+    /**
+     * Returns index of the last separator, {@literal -1} if no separator.
+     */
+    public static int sepIndex(@NonNull CharSequence path) {
+        for (int i = path.length() - 1; i >= 0; --i) {
+            val ch = path.charAt(i);
+            if (ch == '/' || ch == '\\') {
+                return i;
             }
         }
-        return new Pair<>(seppos, extpos);
+        return -1;
     }
 
     public static String dirName(@NonNull String path) {
-        val index = split(path).getFirst();
+        val index = sepIndex(path);
         return index != -1 ? path.substring(0, index) : StringUtils.EMPTY_TEXT;
     }
 
     public static String fullName(@NonNull String path) {
-        int seppos = split(path).getFirst();
+        int seppos = sepIndex(path);
         return path.substring(seppos != 0 ? seppos + 1 : seppos);
     }
 
     public static String baseName(@NonNull String path) {
-        val pair = split(path);
-        return path.substring(pair.getFirst() + 1, pair.getSecond());
+        val view = new PathView(path);
+        return path.substring(view.nameStart(), view.dotIndex());
     }
 
     public static String extName(@NonNull String path) {
-        int extsep = split(path).getSecond();
-        return extsep != path.length() ? path.substring(extsep + 1) : StringUtils.EMPTY_TEXT;
+        val index = extIndex(path);
+        return index != -1 ? path.substring(index) : StringUtils.EMPTY_TEXT;
     }
 
     private static final String MIME_MAPPING_FILE = "!pw/phylame/commons/io/mime.properties";
 
-    private static final Lazy<Properties> mimeMap = new Lazy<>(new Provider<Properties>() {
-        @Override
-        public Properties provide() throws Exception {
-            return CollectionUtils.propertiesFor(MIME_MAPPING_FILE, PathUtils.class.getClassLoader());
+    /**
+     * Current MIME table, replaced when updating.
+     */
+    private static final AtomicReference<MimeTable> mimeTable = new AtomicReference<>();
+
+    private static MimeTable mimeTable() {
+        MimeTable table = mimeTable.get();
+        if (table == null) {
+            table = MimeTable.EMPTY;
+            try {
+                val prop = CollectionUtils.propertiesFor(MIME_MAPPING_FILE, PathUtils.class.getClassLoader());
+                if (prop != null) {
+                    table = MimeTable.of(prop);
+                }
+            } catch (IOException e) {
+                Log.d(TAG, "cannot load MIME mapping: {0}", e);
+            }
+            if (!mimeTable.compareAndSet(null, table)) {
+                table = mimeTable.get();
+            }
         }
-    }, new Properties());
+        return table;
+    }
 
     public static void mapMime(@NonNull String extension, @NonNull String mime) {
-        mimeMap.get().put(extension, mime);
+        MimeTable table;
+        do {
+            table = mimeTable();
+        } while (!mimeTable.compareAndSet(table, table.with(extension, mime)));
     }
 
     public static void mapMimes(@NonNull Map<?, ?> m) {
-        mimeMap.get().putAll(m);
+        MimeTable table;
+        do {
+            table = mimeTable();
+        } while (!mimeTable.compareAndSet(table, table.withAll(m)));
+    }
+
+    /**
+     * Returns start index of extension name in the path, or {@literal -1} if no extension.
+     */
+    public static int extIndex(@NonNull CharSequence path) {
+        for (int i = path.length() - 1; i >= 0; --i) {
+            val ch = path.charAt(i);
+            if (ch == '.') {
+                return i + 1;
+            } else if (ch == '/' || ch == '\\') {
+                break;
+            }
+        }
+        return -1;
     }
 
     public static String mimeFor(@NonNull String name) {
-        if (name.isEmpty()) {
+        return mimeFor((CharSequence) name);
+    }
+
+    /**
+     * Returns MIME for extension of the path, extension is case-insensitive.
+     *
+     * @param path the path
+     * @return the MIME, {@link #UNKNOWN_MIME} if not found, or empty string for empty path
+     */
+    public static String mimeFor(@NonNull CharSequence path) {
+        val end = path.length();
+        if (end == 0) {
             return StringUtils.EMPTY_TEXT;
         }
-        val ext = extName(name);
-        if (ext.isEmpty()) {
+        val index = extIndex(path);
+        if (index < 0 || index == end) {
+            return UNKNOWN_MIME;
+        }
+        return mimeOf(path, index, end);
+    }
+
+    static String mimeOf(CharSequence path, int start, int end) {
+        if (start == end) {
             return UNKNOWN_MIME;
         }
-        return mimeMap.get().getProperty(ext, UNKNOWN_MIME);
+        val mime = mimeTable().get(path, start, end);
+        return mime != null ? mime : UNKNOWN_MIME;
+    }
+
+    /**
+     * Returns MIME for the path, detects from leading bytes of content if unknown by extension.
+     *
+     * @param path the path
+     * @param head leading bytes of the content
+     * @param len  number of bytes in {@code head}
+     * @return the MIME
+     */
+    public static String mimeFor(@NonNull CharSequence path, @NonNull byte[] head, int len) {
+        val mime = mimeFor(path);
+        if (!mime.isEmpty() && !mime.equals(UNKNOWN_MIME)) {
+            return mime;
+        }
+        val detected = detectMime(head, len);
+        return detected != null ? detected : UNKNOWN_MIME;
+    }
+
+    /**
+     * Detects MIME by magic number of content.
+     *
+     * @param head leading bytes of the content
+     * @param len  number of bytes in {@code head}
+     * @return the MIME, or {@code null} if unknown
+     */
+    public static String detectMime(@NonNull byte[] head, int len) {
+        len = Math.min(len, head.length);
+        if (startsWith(head, len, 0x89, 'P', 'N', 'G')) {
+            return "image/png";
+        } else if (startsWith(head, len, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        } else if (startsWith(head, len, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        } else if (len >= 14 && startsWith(head, len, 'B', 'M')
+                && head[6] == 0 && head[7] == 0 && head[8] == 0 && head[9] == 0) { // reserved fields are zero
+            return "image/bmp";
+        } else if (len >= 12 && startsWith(head, len, 'R', 'I', 'F', 'F')
+                && head[8] == 'W' && head[9] == 'E' && head[10] == 'B' && head[11] == 'P') {
+            return "image/webp";
+        } else if (startsWith(head, len, '%', 'P', 'D', 'F')) {
+            return "application/pdf";
+        } else if (startsWith(head, len, 'P', 'K', 3, 4)) {
+            return "application/zip";
+        } else if (startsWith(head, len, 0x1F, 0x8B)) {
+            return "application/gzip";
+        } else if (startsWith(head, len, 'I', 'D', '3')) {
+            return "audio/mpeg";
+        } else if (startsWith(head, len, 'O', 'g', 'g', 'S')) {
+            return "audio/ogg";
+        }
+        val text = new String(head, 0, len, Charset.forName("ISO-8859-1")).trim();
+        if (text.startsWith("<?xml")) {
+            return "application/xml";
+        }
+        val lower = text.length() > 16 ? text.substring(0, 16).toLowerCase() : text.toLowerCase();
+        if (lower.startsWith("<!doctype html") || lower.startsWith("<html")) {
+            return "text/html";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] b, int len, int... magic) {
+        if (len < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; ++i) {
+            if ((b[i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public static String mimeOrDetect(@NonNull String path, String mime) {
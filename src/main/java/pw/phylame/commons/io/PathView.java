@@ -0,0 +1,193 @@
+/*
+ * Copyright 2017 Peng Wan <phylame@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pw.phylame.commons.io;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Reusable view of path components.
+ * <p>
+ * Offsets of separator and extension are computed once in {@link #reset(CharSequence)},
+ * strings are created only when requested. The view can be reused for many paths:
+ * <pre>
+ * val view = new PathView();
+ * for (val name : names) {
+ *     if (view.reset(name).extEquals("html")) { ... }
+ * }
+ * </pre>
+ * Both {@code /} and {@code \} are separators.
+ */
+public final class PathView {
+    /**
+     * The path.
+     */
+    @Getter
+    private CharSequence path;
+
+    private int length;
+
+    private int sepIndex;
+
+    private int dotIndex;
+
+    public PathView() {
+        path = "";
+    }
+
+    public PathView(@NonNull CharSequence path) {
+        reset(path);
+    }
+
+    /**
+     * Parses specified path.
+     *
+     * @param path the path
+     * @return this view
+     */
+    public PathView reset(@NonNull CharSequence path) {
+        this.path = path;
+        length = path.length();
+        sepIndex = -1;
+        dotIndex = length;
+        boolean dotFound = false;
+        for (int i = length - 1; i >= 0; --i) {
+            val ch = path.charAt(i);
+            if (ch == '.' && !dotFound) {
+                dotIndex = i;
+                dotFound = true;
+            } else if (ch == '/' || ch == '\\') {
+                sepIndex = i;
+                break;
+            }
+        }
+        return this;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns index of the last separator, {@literal -1} if no separator.
+     */
+    public int sepIndex() {
+        return sepIndex;
+    }
+
+    /**
+     * Returns start index of the file name.
+     */
+    public int nameStart() {
+        return sepIndex + 1;
+    }
+
+    /**
+     * Returns index of dot before extension, or length of path if no extension.
+     */
+    public int dotIndex() {
+        return dotIndex;
+    }
+
+    /**
+     * Returns start index of extension, equals to length of path if no extension.
+     */
+    public int extStart() {
+        return dotIndex != length ? dotIndex + 1 : length;
+    }
+
+    public boolean hasDir() {
+        return sepIndex >= 0;
+    }
+
+    public boolean hasExt() {
+        return dotIndex + 1 < length;
+    }
+
+    /**
+     * Returns directory part, empty if no separator.
+     */
+    public String dirName() {
+        return sepIndex >= 0 ? substring(0, sepIndex) : "";
+    }
+
+    /**
+     * Returns file name with extension.
+     */
+    public String fullName() {
+        return substring(sepIndex + 1, length);
+    }
+
+    /**
+     * Returns file name without extension.
+     */
+    public String baseName() {
+        return substring(sepIndex + 1, dotIndex);
+    }
+
+    /**
+     * Returns extension without dot, empty if no extension.
+     */
+    public String extName() {
+        return substring(extStart(), length);
+    }
+
+    /**
+     * Tests if extension equals to specified one ignoring case, without creating string.
+     */
+    public boolean extEquals(@NonNull String ext) {
+        val start = extStart();
+        if (length - start != ext.length()) {
+            return false;
+        }
+        if (path instanceof String) {
+            return ((String) path).regionMatches(true, start, ext, 0, ext.length());
+        }
+        for (int i = 0, n = ext.length(); i < n; ++i) {
+            val a = path.charAt(start + i);
+            val b = ext.charAt(i);
+            if (a != b && Character.toLowerCase(a) != Character.toLowerCase(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns MIME by extension of the path.
+     *
+     * @see PathUtils#mimeFor(CharSequence)
+     */
+    public String mime() {
+        if (length == 0) {
+            return "";
+        }
+        return PathUtils.mimeOf(path, extStart(), length);
+    }
+
+    private String substring(int start, int end) {
+        return path instanceof String
+                ? ((String) path).substring(start, end)
+                : path.subSequence(start, end).toString();
+    }
+
+    @Override
+    public String toString() {
+        return path.toString();
+    }
+}
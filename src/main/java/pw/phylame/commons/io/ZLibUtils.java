@@ -128,6 +128,35 @@ public final class ZLibUtils {
         dos.flush();
     }
 
+    /**
+     * Compresses data from input stream with specified compression level
+     * and writes to output.
+     *
+     * @param input  the input stream
+     * @param output the output stream
+     * @param level  ZLIB compression level
+     * @return number of bytes read from input
+     * @throws IOException if occur IO errors
+     */
+    public static long compress(InputStream input, OutputStream output, int level) throws IOException {
+        val deflater = new Deflater(level);
+        try {
+            val dos = new DeflaterOutputStream(output, deflater, BUFFER_SIZE);
+            val buf = new byte[BUFFER_SIZE];
+            long total = 0L;
+            int n;
+            while ((n = input.read(buf)) != -1) {
+                dos.write(buf, 0, n);
+                total += n;
+            }
+            dos.finish();
+            dos.flush();
+            return total;
+        } finally {
+            deflater.end();
+        }
+    }
+
     /**
      * Decompresses specified input byte data.
      *
@@ -0,0 +1,419 @@
+/*
+ * Copyright 2017 Peng Wan <phylame@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pw.phylame.commons.log;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.val;
+import pw.phylame.commons.util.Validate;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Appender that formats and writes log records in a background thread.
+ * <p>
+ * Callers enqueue records into a bounded lock-free ring buffer, the background thread
+ * drains the buffer, formats records and writes them to their targets in batches.
+ * When the buffer is full, the record is handled by the {@link OverflowPolicy}.
+ * <p>
+ * Install the appender with {@link Log#setAppender(AsyncAppender)}.
+ */
+public class AsyncAppender implements Closeable, Flushable {
+    /**
+     * Policy for records posted when the buffer is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Waits until the buffer has free space.
+         */
+        BLOCK,
+        /**
+         * Drops the record.
+         */
+        DROP,
+        /**
+         * Keeps one of each {@code sampleRate} records when the buffer is over three quarters
+         * full, drops the record when the buffer is full.
+         */
+        SAMPLE
+    }
+
+    private static final String TAG = "AsyncAppender";
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    public static final int DEFAULT_SAMPLE_RATE = 8;
+
+    private static final int MAX_BATCH_SIZE = 256;
+
+    private static final long IDLE_NANOS = 1000000L;
+
+    private static final long BLOCK_NANOS = 10000L;
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    @Getter
+    private final OverflowPolicy policy;
+
+    @Getter
+    private final int capacity;
+
+    private final int mask;
+
+    private final int sampleRate;
+
+    private final int highWater;
+
+    private final Record[] records;
+
+    /**
+     * Sequence of each slot, equals to position when writable, position + 1 when readable.
+     */
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Read position, updated by worker only.
+     */
+    private volatile long head = 0L;
+
+    private final AtomicLong sampling = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong sampledOut = new AtomicLong();
+
+    private final Map<Appendable, StringBuilder> batches = new IdentityHashMap<>(4);
+
+    private final Thread worker;
+
+    private volatile boolean running = true;
+
+    private volatile boolean idle = false;
+
+    public AsyncAppender() {
+        this(DEFAULT_CAPACITY, OverflowPolicy.BLOCK, DEFAULT_SAMPLE_RATE);
+    }
+
+    public AsyncAppender(int capacity, OverflowPolicy policy) {
+        this(capacity, policy, DEFAULT_SAMPLE_RATE);
+    }
+
+    /**
+     * Constructs appender and starts the background thread.
+     *
+     * @param capacity   size of the ring buffer, rounded up to power of two
+     * @param policy     policy when the buffer is full
+     * @param sampleRate keep one of each {@code sampleRate} records for {@link OverflowPolicy#SAMPLE}
+     */
+    public AsyncAppender(int capacity, @NonNull OverflowPolicy policy, int sampleRate) {
+        Validate.require(capacity > 0 && capacity <= 1 << 30, "capacity must in (0, 2^30]");
+        Validate.require(sampleRate > 0, "sampleRate <= 0");
+        this.capacity = capacity > 1 ? Integer.highestOneBit(capacity - 1) << 1 : 1;
+        this.mask = this.capacity - 1;
+        this.policy = policy;
+        this.sampleRate = sampleRate;
+        this.highWater = this.capacity - (this.capacity >> 2);
+        records = new Record[this.capacity];
+        sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; ++i) {
+            records[i] = new Record();
+            sequences.set(i, i);
+        }
+        worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, "log-async");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Returns number of records dropped since the buffer is full.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns number of records skipped by sampling.
+     */
+    public long getSampledCount() {
+        return sampledOut.get();
+    }
+
+    /**
+     * Returns number of records waiting in the buffer.
+     */
+    public int size() {
+        return (int) Math.max(0L, tail.get() - head);
+    }
+
+    /**
+     * Posts a log record.
+     * <p>
+     * If the appender is closed or the background thread is dead, the record is written
+     * in current thread, including records posted while closing.
+     *
+     * @param target the output of the record
+     * @param tag    the tag
+     * @param level  the level name
+     * @param format the message format
+     * @param args   the arguments
+     */
+    public void append(@NonNull Appendable target, String tag, String level, String format, Object... args) {
+        if (!running) {
+            write(target, Log.getFormatter().format(tag, level, format, args));
+            return;
+        }
+        val thread = Thread.currentThread().getName();
+        switch (policy) {
+            case BLOCK: {
+                while (!offer(target, thread, tag, level, format, args)) {
+                    if (!running || !worker.isAlive()) {
+                        write(target, Log.getFormatter().format(tag, level, format, args));
+                        return;
+                    }
+                    LockSupport.unpark(worker);
+                    LockSupport.parkNanos(this, BLOCK_NANOS);
+                }
+            }
+            break;
+            case SAMPLE: {
+                if (size() >= highWater && sampling.incrementAndGet() % sampleRate != 0) {
+                    sampledOut.incrementAndGet();
+                    return;
+                }
+                if (!offer(target, thread, tag, level, format, args)) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+            }
+            break;
+            default: {
+                if (!offer(target, thread, tag, level, format, args)) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+            }
+            break;
+        }
+        if (!running) { // closed after the check, the worker may have exited
+            drainClosed();
+        } else if (idle) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    /**
+     * Waits until all records posted before are written.
+     * <p>
+     * If the background thread is dead, pending records are written in current thread.
+     */
+    @Override
+    public void flush() {
+        val end = tail.get();
+        while (head < end && worker.isAlive()) {
+            LockSupport.unpark(worker);
+            LockSupport.parkNanos(this, BLOCK_NANOS);
+        }
+        if (head < end) {
+            drainClosed();
+        }
+    }
+
+    /**
+     * Writes pending records and stops the background thread.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes records left in the buffer in current thread after the worker exited.
+     */
+    private void drainClosed() {
+        if (Thread.currentThread() != worker) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (worker.isAlive()) {
+                return;
+            }
+        }
+        synchronized (this) {
+            int count;
+            do {
+                count = drain();
+            } while (count != 0);
+        }
+    }
+
+    private boolean offer(Appendable target, String thread, String tag, String level, String format, Object[] args) {
+        long pos = tail.get();
+        for (; ; ) {
+            val index = (int) pos & mask;
+            val diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    records[index].set(target, thread, tag, level, format, args);
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) { // full
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    private void loop() {
+        while (running || head < tail.get()) {
+            if (drain() == 0) {
+                idle = true;
+                if (running && head == tail.get()) {
+                    LockSupport.parkNanos(this, IDLE_NANOS);
+                }
+                idle = false;
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Writes a batch of records, the read position is advanced after the batch is written.
+     */
+    private int drain() {
+        int count = 0;
+        long pos = head;
+        try {
+            while (count < MAX_BATCH_SIZE) {
+                val index = (int) pos & mask;
+                if (sequences.get(index) != pos + 1) { // not published yet
+                    break;
+                }
+                val record = records[index];
+                val target = record.target;
+                val text = render(record);
+                record.clear();
+                sequences.set(index, pos + capacity);
+                ++pos;
+                ++count;
+                StringBuilder b = batches.get(target);
+                if (b == null) {
+                    b = new StringBuilder(1024);
+                    batches.put(target, b);
+                }
+                b.append(text).append(LINE_SEPARATOR);
+            }
+            if (count != 0) {
+                for (val e : batches.entrySet()) {
+                    val b = e.getValue();
+                    if (b.length() != 0) {
+                        try {
+                            writeBatch(e.getKey(), b);
+                        } finally {
+                            b.setLength(0);
+                        }
+                    }
+                }
+            }
+        } finally {
+            head = pos;
+        }
+        return count;
+    }
+
+    private String render(Record record) {
+        val formatter = Log.getFormatter();
+        try {
+            if (formatter.getClass() == DefaultLogFormatter.class) { // subclasses may override format
+                return ((DefaultLogFormatter) formatter).formatRecord(record.thread, record.tag, record.level, record.format, record.args);
+            }
+            return formatter.format(record.tag, record.level, record.format, record.args);
+        } catch (RuntimeException e) {
+            report("cannot format record {0}: {1}", record.format, e);
+            return String.valueOf(record.format);
+        }
+    }
+
+    private void writeBatch(Appendable target, CharSequence text) {
+        try {
+            target.append(text);
+            if (target instanceof Flushable) {
+                ((Flushable) target).flush();
+            }
+        } catch (IOException | RuntimeException e) {
+            report("cannot write to {0}: {1}", target, e);
+        }
+    }
+
+    private void write(Appendable target, String text) {
+        try {
+            target.append(text).append(LINE_SEPARATOR);
+        } catch (IOException | RuntimeException e) {
+            report("cannot write to {0}: {1}", target, e);
+        }
+    }
+
+    private static void report(String format, Object... args) {
+        System.err.println(TAG + ": " + MessageTemplate.format(format, args));
+    }
+
+    private static class Record {
+        private Appendable target;
+        private String thread;
+        private String tag;
+        private String level;
+        private String format;
+        private Object[] args;
+
+        void set(Appendable target, String thread, String tag, String level, String format, Object[] args) {
+            this.target = target;
+            this.thread = thread;
+            this.tag = tag;
+            this.level = level;
+            this.format = format;
+            this.args = args;
+        }
+
+        void clear() {
+            set(null, null, null, null, null, null);
+        }
+    }
+}
@@ -16,11 +16,21 @@
 
 package pw.phylame.commons.log;
 
-import java.text.MessageFormat;
+import lombok.val;
 
 public class DefaultLogFormatter implements LogFormatter {
     @Override
     public String format(String tag, String level, String format, Object... args) {
-        return String.format("[%s] %s/%s: %s", Thread.currentThread().getName(), level, tag, MessageFormat.format(format, args));
+        return formatRecord(Thread.currentThread().getName(), tag, level, format, args);
+    }
+
+    /**
+     * Formats record logged in specified thread.
+     */
+    String formatRecord(String thread, String tag, String level, String format, Object... args) {
+        val b = MessageTemplate.obtainBuilder();
+        b.append('[').append(thread).append("] ").append(level).append('/').append(tag).append(": ");
+        MessageTemplate.of(format).appendTo(b, args);
+        return MessageTemplate.releaseBuilder(b);
     }
 }
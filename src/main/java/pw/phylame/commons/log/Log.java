@@ -19,6 +19,7 @@ package pw.phylame.commons.log;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
+import lombok.val;
 import pw.phylame.commons.util.Exceptions;
 
 import java.io.IOException;
@@ -49,13 +50,40 @@ public final class Log {
     @NonNull
     private static LogFormatter formatter = new DefaultLogFormatter();
 
+    /**
+     * Appender for writing records asynchronously, {@code null} for writing in caller thread.
+     */
+    @Getter
+    @Setter
+    private static volatile AsyncAppender appender;
+
     public static boolean isEnable(LogLevel level) {
         return level.getCode() <= Log.level.getCode();
     }
 
+    public static void t(String tag, String format) {
+        if (isEnable(TRACE))
+            log(out, tag, "t", format, NO_ARGS);
+    }
+
+    public static void t(String tag, String format, Object arg) {
+        if (isEnable(TRACE))
+            log(out, tag, "t", format, spread(arg));
+    }
+
+    public static void t(String tag, String format, Object arg1, Object arg2) {
+        if (isEnable(TRACE))
+            log(out, tag, "t", format, arg1, arg2);
+    }
+
+    public static void t(String tag, String format, Object arg1, Object arg2, Object arg3) {
+        if (isEnable(TRACE))
+            log(out, tag, "t", format, arg1, arg2, arg3);
+    }
+
     public static void t(String tag, String format, Object... args) {
         if (isEnable(TRACE))
-            printToOut(formatter.format(tag, "t", format, args), true);
+            log(out, tag, "t", format, args);
     }
 
     public static void t(String tag, Throwable t) {
@@ -63,9 +91,29 @@ public final class Log {
             t(tag, Exceptions.dumpToString(t));
     }
 
+    public static void d(String tag, String format) {
+        if (isEnable(DEBUG))
+            log(out, tag, "d", format, NO_ARGS);
+    }
+
+    public static void d(String tag, String format, Object arg) {
+        if (isEnable(DEBUG))
+            log(out, tag, "d", format, spread(arg));
+    }
+
+    public static void d(String tag, String format, Object arg1, Object arg2) {
+        if (isEnable(DEBUG))
+            log(out, tag, "d", format, arg1, arg2);
+    }
+
+    public static void d(String tag, String format, Object arg1, Object arg2, Object arg3) {
+        if (isEnable(DEBUG))
+            log(out, tag, "d", format, arg1, arg2, arg3);
+    }
+
     public static void d(String tag, String format, Object... args) {
         if (isEnable(DEBUG))
-            printToOut(formatter.format(tag, "d", format, args), true);
+            log(out, tag, "d", format, args);
     }
 
     public static void d(String tag, Throwable t) {
@@ -73,9 +121,29 @@ public final class Log {
             d(tag, Exceptions.dumpToString(t));
     }
 
+    public static void i(String tag, String format) {
+        if (isEnable(INFO))
+            log(out, tag, "i", format, NO_ARGS);
+    }
+
+    public static void i(String tag, String format, Object arg) {
+        if (isEnable(INFO))
+            log(out, tag, "i", format, spread(arg));
+    }
+
+    public static void i(String tag, String format, Object arg1, Object arg2) {
+        if (isEnable(INFO))
+            log(out, tag, "i", format, arg1, arg2);
+    }
+
+    public static void i(String tag, String format, Object arg1, Object arg2, Object arg3) {
+        if (isEnable(INFO))
+            log(out, tag, "i", format, arg1, arg2, arg3);
+    }
+
     public static void i(String tag, String format, Object... args) {
         if (isEnable(INFO))
-            printToOut(formatter.format(tag, "i", format, args), true);
+            log(out, tag, "i", format, args);
     }
 
     public static void i(String tag, Throwable t) {
@@ -83,9 +151,29 @@ public final class Log {
             i(tag, Exceptions.dumpToString(t));
     }
 
+    public static void w(String tag, String format) {
+        if (isEnable(WARN))
+            log(out, tag, "w", format, NO_ARGS);
+    }
+
+    public static void w(String tag, String format, Object arg) {
+        if (isEnable(WARN))
+            log(out, tag, "w", format, spread(arg));
+    }
+
+    public static void w(String tag, String format, Object arg1, Object arg2) {
+        if (isEnable(WARN))
+            log(out, tag, "w", format, arg1, arg2);
+    }
+
+    public static void w(String tag, String format, Object arg1, Object arg2, Object arg3) {
+        if (isEnable(WARN))
+            log(out, tag, "w", format, arg1, arg2, arg3);
+    }
+
     public static void w(String tag, String format, Object... args) {
         if (isEnable(WARN))
-            printToOut(formatter.format(tag, "w", format, args), true);
+            log(out, tag, "w", format, args);
     }
 
     public static void w(String tag, Throwable t) {
@@ -93,9 +181,29 @@ public final class Log {
             w(tag, Exceptions.dumpToString(t));
     }
 
+    public static void e(String tag, String format) {
+        if (isEnable(ERROR))
+            log(err, tag, "e", format, NO_ARGS);
+    }
+
+    public static void e(String tag, String format, Object arg) {
+        if (isEnable(ERROR))
+            log(err, tag, "e", format, spread(arg));
+    }
+
+    public static void e(String tag, String format, Object arg1, Object arg2) {
+        if (isEnable(ERROR))
+            log(err, tag, "e", format, arg1, arg2);
+    }
+
+    public static void e(String tag, String format, Object arg1, Object arg2, Object arg3) {
+        if (isEnable(ERROR))
+            log(err, tag, "e", format, arg1, arg2, arg3);
+    }
+
     public static void e(String tag, String format, Object... args) {
         if (isEnable(ERROR))
-            printToErr(formatter.format(tag, "e", format, args), true);
+            log(err, tag, "e", format, args);
     }
 
     public static void e(String tag, Throwable t) {
@@ -103,9 +211,29 @@ public final class Log {
             e(tag, Exceptions.dumpToString(t));
     }
 
+    public static void f(String tag, String format) {
+        if (isEnable(FATAL))
+            log(err, tag, "f", format, NO_ARGS);
+    }
+
+    public static void f(String tag, String format, Object arg) {
+        if (isEnable(FATAL))
+            log(err, tag, "f", format, spread(arg));
+    }
+
+    public static void f(String tag, String format, Object arg1, Object arg2) {
+        if (isEnable(FATAL))
+            log(err, tag, "f", format, arg1, arg2);
+    }
+
+    public static void f(String tag, String format, Object arg1, Object arg2, Object arg3) {
+        if (isEnable(FATAL))
+            log(err, tag, "f", format, arg1, arg2, arg3);
+    }
+
     public static void f(String tag, String format, Object... args) {
         if (isEnable(FATAL))
-            printToErr(formatter.format(tag, "f", format, args), true);
+            log(err, tag, "f", format, args);
     }
 
     public static void f(String tag, Throwable t) {
@@ -115,12 +243,22 @@ public final class Log {
 
     private static final String LINE_SEPARATOR = System.lineSeparator();
 
-    private static void printToOut(String text, boolean withNewLine) {
-        print(out, text, withNewLine);
+    private static final Object[] NO_ARGS = {};
+
+    /**
+     * Keeps the varargs semantic for single array argument.
+     */
+    private static Object[] spread(Object arg) {
+        return arg instanceof Object[] ? (Object[]) arg : new Object[]{arg};
     }
 
-    private static void printToErr(String text, boolean withNewLine) {
-        print(err, text, withNewLine);
+    private static void log(Appendable target, String tag, String level, String format, Object... args) {
+        val appender = Log.appender;
+        if (appender != null) {
+            appender.append(target, tag, level, format, args);
+        } else {
+            print(target, formatter.format(tag, level, format, args), true);
+        }
     }
 
     private static void print(Appendable out, String text, boolean withNewLine) {
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2017 Peng Wan <phylame@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pw.phylame.commons.log;
+
+import lombok.NonNull;
+import lombok.val;
+
+import java.text.DateFormat;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Pre-parsed pattern of {@code MessageFormat}.
+ * <p>
+ * Patterns with only simple placeholders like <code>{0}</code> are parsed once and rendered
+ * without {@code MessageFormat}, the output is same as {@link MessageFormat#format(String, Object...)}.
+ * Patterns with format type or style are delegated to a copy of pre-parsed {@code MessageFormat}.
+ */
+public final class MessageTemplate {
+    private static final int MAX_CACHED_TEMPLATES = 512;
+
+    private static final int MAX_CACHED_PATTERN_LENGTH = 256;
+
+    private static final int MAX_BUILDER_CAPACITY = 8192;
+
+    /**
+     * Limit of argument index in {@code MessageFormat} of Java 7 and 8, larger indexes are
+     * delegated to {@code MessageFormat} for same result of the running JDK.
+     */
+    private static final int MAX_ARGUMENT_INDEX = 10000;
+
+    private static final ConcurrentMap<String, MessageTemplate> templates = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<Context> contexts = new ThreadLocal<Context>() {
+        @Override
+        protected Context initialValue() {
+            return new Context();
+        }
+    };
+
+    private final String pattern;
+
+    /**
+     * Literal parts, one more than {@link #indexes}, {@code null} if delegated to {@code MessageFormat}.
+     */
+    private final String[] literals;
+
+    private final int[] indexes;
+
+    /**
+     * Prototype of delegated pattern, {@code MessageFormat} is not thread-safe so it is cloned when used.
+     */
+    private final MessageFormat format;
+
+    private MessageTemplate(String pattern, String[] literals, int[] indexes) {
+        this.pattern = pattern;
+        this.literals = literals;
+        this.indexes = indexes;
+        format = literals == null ? new MessageFormat(pattern) : null;
+    }
+
+    /**
+     * Returns template for specified pattern, short patterns are cached.
+     * <p>
+     * When the cache is full, a random template is evicted for the new one, so templates
+     * in frequent use stay cached with high probability.
+     *
+     * @param pattern the pattern of {@code MessageFormat}
+     * @return the template
+     */
+    public static MessageTemplate of(@NonNull String pattern) {
+        MessageTemplate template = templates.get(pattern);
+        if (template == null) {
+            template = parse(pattern);
+            if (pattern.length() <= MAX_CACHED_PATTERN_LENGTH) {
+                if (templates.size() >= MAX_CACHED_TEMPLATES) {
+                    evictOne();
+                }
+                val prev = templates.putIfAbsent(pattern, template);
+                if (prev != null) {
+                    template = prev;
+                }
+            }
+        }
+        return template;
+    }
+
+    private static void evictOne() {
+        int skip = ThreadLocalRandom.current().nextInt(MAX_CACHED_TEMPLATES);
+        String victim = null;
+        for (val key : templates.keySet()) {
+            victim = key;
+            if (--skip < 0) {
+                break;
+            }
+        }
+        if (victim != null) {
+            templates.remove(victim);
+        }
+    }
+
+    public static String format(@NonNull String pattern, Object... args) {
+        val b = obtainBuilder();
+        of(pattern).appendTo(b, args);
+        return releaseBuilder(b);
+    }
+
+    public String format(Object... args) {
+        val b = obtainBuilder();
+        appendTo(b, args);
+        return releaseBuilder(b);
+    }
+
+    /**
+     * Appends formatted message to specified builder.
+     *
+     * @param b    the builder
+     * @param args the arguments
+     */
+    public void appendTo(@NonNull StringBuilder b, Object... args) {
+        if (literals == null) {
+            val locale = Locale.getDefault(Locale.Category.FORMAT);
+            val mf = format.getLocale().equals(locale) ? (MessageFormat) format.clone() : new MessageFormat(pattern, locale);
+            b.append(mf.format(args));
+            return;
+        }
+        Context context = null;
+        b.append(literals[0]);
+        for (int i = 0, end = indexes.length; i < end; ++i) {
+            val index = indexes[i];
+            if (args == null || index >= args.length) {
+                b.append('{').append(index).append('}');
+            } else {
+                val arg = args[index];
+                if (arg == null) {
+                    b.append("null");
+                } else if (arg instanceof String) {
+                    b.append((String) arg);
+                } else if (arg instanceof Number) {
+                    if (context == null) {
+                        context = contexts.get();
+                    }
+                    b.append(context.numberFormat().format(arg));
+                } else if (arg instanceof Date) {
+                    if (context == null) {
+                        context = contexts.get();
+                    }
+                    b.append(context.dateFormat().format(arg));
+                } else {
+                    b.append(arg.toString());
+                }
+            }
+            b.append(literals[i + 1]);
+        }
+    }
+
+    /**
+     * Returns the thread-local builder, which is cleared.
+     */
+    static StringBuilder obtainBuilder() {
+        val context = contexts.get();
+        val b = context.builder;
+        if (b == null) {
+            return new StringBuilder(128);
+        }
+        context.builder = null; // reentrant use gets a new one
+        b.setLength(0);
+        return b;
+    }
+
+    /**
+     * Returns content of the builder and recycles it.
+     */
+    static String releaseBuilder(StringBuilder b) {
+        val text = b.toString();
+        if (b.capacity() <= MAX_BUILDER_CAPACITY) {
+            contexts.get().builder = b;
+        }
+        return text;
+    }
+
+    private static MessageTemplate parse(String pattern) {
+        val literals = new ArrayList<String>();
+        val indexes = new ArrayList<Integer>();
+        val b = new StringBuilder(pattern.length());
+        boolean quoted = false;
+        for (int i = 0, end = pattern.length(); i < end; ++i) {
+            val c = pattern.charAt(i);
+            if (c == '\'') {
+                if (i + 1 < end && pattern.charAt(i + 1) == '\'') {
+                    b.append(c);
+                    ++i;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (quoted || c != '{') {
+                b.append(c);
+            } else {
+                int j = i + 1, index = 0;
+                while (j < end && j - i <= 9) {
+                    val d = pattern.charAt(j);
+                    if (d < '0' || d > '9') {
+                        break;
+                    }
+                    index = index * 10 + d - '0';
+                    ++j;
+                }
+                if (j == i + 1 || j == end || pattern.charAt(j) != '}' // type, style or malformed
+                        || index >= MAX_ARGUMENT_INDEX) {
+                    return new MessageTemplate(pattern, null, null);
+                }
+                literals.add(b.toString());
+                b.setLength(0);
+                indexes.add(index);
+                i = j;
+            }
+        }
+        literals.add(b.toString());
+        val array = new int[indexes.size()];
+        for (int i = 0; i < array.length; ++i) {
+            array[i] = indexes.get(i);
+        }
+        return new MessageTemplate(pattern, literals.toArray(new String[literals.size()]), array);
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+    private static class Context {
+        private StringBuilder builder = new StringBuilder(128);
+
+        private Locale locale;
+
+        private NumberFormat numberFormat;
+
+        private DateFormat dateFormat;
+
+        NumberFormat numberFormat() {
+            checkLocale();
+            if (numberFormat == null) {
+                numberFormat = NumberFormat.getInstance(locale);
+            }
+            return numberFormat;
+        }
+
+        DateFormat dateFormat() {
+            checkLocale();
+            if (dateFormat == null) {
+                dateFormat = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, locale);
+            }
+            return dateFormat;
+        }
+
+        private void checkLocale() {
+            val current = Locale.getDefault(Locale.Category.FORMAT);
+            if (!current.equals(locale)) {
+                locale = current;
+                numberFormat = null;
+                dateFormat = null;
+            }
+        }
+    }
+}
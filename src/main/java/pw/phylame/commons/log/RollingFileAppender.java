@@ -0,0 +1,441 @@
+/*
+ * Copyright 2017 Peng Wan <phylame@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pw.phylame.commons.log;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.val;
+import pw.phylame.commons.io.ZLibUtils;
+import pw.phylame.commons.util.Exceptions;
+import pw.phylame.commons.util.Validate;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Log output writing to file with rotation.
+ * <p>
+ * Text is buffered and written to the file channel when the buffer is full or
+ * {@link #flush()} is called. Written data is forced to disk by a background thread
+ * periodically, so concurrent flushes share one disk sync.
+ * <p>
+ * The file is rotated when its size exceeds the limit or the time interval elapsed,
+ * rotated file is renamed with timestamp suffix and compressed with {@link ZLibUtils}
+ * in the background thread.
+ * <p>
+ * Errors of the appender itself are reported to {@code System.err} rather than {@link Log},
+ * which may be writing to this appender.
+ */
+public class RollingFileAppender implements Appendable, Flushable, Closeable {
+    private static final String TAG = "RFA";
+
+    /**
+     * Extension of compressed segments.
+     */
+    public static final String COMPRESSED_EXTENSION = ".zz";
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    public static final long DEFAULT_SYNC_INTERVAL = 1000L;
+
+    public static final long DAILY = TimeUnit.DAYS.toMillis(1);
+
+    public static final long HOURLY = TimeUnit.HOURS.toMillis(1);
+
+    @Getter
+    private final File file;
+
+    /**
+     * Max bytes of the file before rotation, {@literal 0} for unlimited.
+     * <p>
+     * Size is counted in encoded bytes and checked at line starts, so the last line of a
+     * segment may go beyond the limit.
+     */
+    @Getter
+    private final long maxBytes;
+
+    /**
+     * Rotation interval in milliseconds, {@literal 0} for no time based rotation.
+     */
+    @Getter
+    private final long interval;
+
+    /**
+     * Max number of rotated segments kept, {@literal 0} for unlimited.
+     */
+    @Getter
+    private final int maxBackups;
+
+    private final int bufferSize;
+
+    private final CharsetEncoder encoder;
+
+    private final StringBuilder pending;
+
+    private final ByteBuffer bytes;
+
+    private final ScheduledExecutorService executor;
+
+    private final Object lock = new Object();
+
+    private FileChannel channel;
+
+    private long size;
+
+    private long nextRollTime;
+
+    private boolean lineStart = true;
+
+    private volatile boolean dirty = false;
+
+    private boolean closed = false;
+
+    public RollingFileAppender(@NonNull File file) throws IOException {
+        this(file, 0L, DAILY, 0);
+    }
+
+    public RollingFileAppender(@NonNull File file, long maxBytes, long interval, int maxBackups) throws IOException {
+        this(file, Charset.forName("UTF-8"), maxBytes, interval, maxBackups, DEFAULT_BUFFER_SIZE, DEFAULT_SYNC_INTERVAL);
+    }
+
+    /**
+     * Constructs appender writing to specified file.
+     *
+     * @param file         the log file, text is appended if the file exists
+     * @param charset      the encoding of text
+     * @param maxBytes     max bytes of the file before rotation, {@literal 0} for unlimited
+     * @param interval     rotation interval in milliseconds, {@literal 0} for no time based rotation
+     * @param maxBackups   max number of rotated segments kept, {@literal 0} for unlimited
+     * @param bufferSize   size of the text buffer
+     * @param syncInterval interval in milliseconds for forcing data to disk
+     * @throws IOException if failed to open the file
+     */
+    public RollingFileAppender(@NonNull File file,
+                               @NonNull Charset charset,
+                               long maxBytes,
+                               long interval,
+                               int maxBackups,
+                               int bufferSize,
+                               long syncInterval) throws IOException {
+        Validate.require(maxBytes >= 0, "maxBytes < 0");
+        Validate.require(interval >= 0, "interval < 0");
+        Validate.require(maxBackups >= 0, "maxBackups < 0");
+        Validate.require(bufferSize > 0, "bufferSize <= 0");
+        Validate.require(syncInterval > 0, "syncInterval <= 0");
+        this.file = file.getAbsoluteFile();
+        this.maxBytes = maxBytes;
+        this.interval = interval;
+        this.maxBackups = maxBackups;
+        this.bufferSize = bufferSize;
+        encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        pending = new StringBuilder(bufferSize);
+        bytes = ByteBuffer.allocateDirect(Math.max(bufferSize, (int) Math.ceil(encoder.maxBytesPerChar() * 16)));
+        open(System.currentTimeMillis());
+        executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                val thread = new Thread(r, "log-file");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    sync();
+                } catch (IOException e) {
+                    report("failed to sync {0}: {1}", RollingFileAppender.this.file, e);
+                }
+            }
+        }, syncInterval, syncInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) throws IOException {
+        if (csq == null) {
+            csq = "null";
+        }
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) throws IOException {
+        if (csq == null) {
+            csq = "null";
+        }
+        synchronized (lock) {
+            ensureOpen();
+            if (lineStart) {
+                checkRollover();
+            }
+            pending.append(csq, start, end);
+            if (pending.length() >= bufferSize) {
+                writePending();
+            }
+            if (end > start) {
+                lineStart = csq.charAt(end - 1) == '\n';
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+        synchronized (lock) {
+            ensureOpen();
+            if (lineStart) {
+                checkRollover();
+            }
+            pending.append(c);
+            if (pending.length() >= bufferSize) {
+                writePending();
+            }
+            lineStart = c == '\n';
+        }
+        return this;
+    }
+
+    /**
+     * Writes buffered text to the file channel.
+     * <p>
+     * Data is forced to disk later by background thread, use {@link #sync()} to force now.
+     */
+    @Override
+    public void flush() throws IOException {
+        synchronized (lock) {
+            if (!closed) {
+                writePending();
+            }
+        }
+    }
+
+    /**
+     * Writes buffered text and forces written data to disk.
+     *
+     * @throws IOException if occur IO errors
+     */
+    public void sync() throws IOException {
+        FileChannel channel;
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            writePending();
+            if (!dirty) {
+                return;
+            }
+            dirty = false;
+            channel = this.channel;
+        }
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException ignored) { // rotated, forced when closing
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                writePending();
+                channel.force(false);
+            } finally {
+                channel.close();
+            }
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("appender is closed: " + file);
+        }
+    }
+
+    private void open(long now) throws IOException {
+        val dir = file.getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw Exceptions.forIO("Cannot create directory: %s", dir);
+        }
+        channel = new FileOutputStream(file, true).getChannel();
+        size = channel.size();
+        if (interval > 0) {
+            // align to interval boundary in local time
+            val offset = TimeZone.getDefault().getOffset(now);
+            nextRollTime = ((now + offset) / interval + 1) * interval - offset;
+        } else {
+            nextRollTime = Long.MAX_VALUE;
+        }
+    }
+
+    private void checkRollover() throws IOException {
+        if (maxBytes > 0 && size + (long) (pending.length() * encoder.maxBytesPerChar()) >= maxBytes) {
+            writePending(); // count encoded bytes of pending text
+            if (size >= maxBytes) {
+                rollover(System.currentTimeMillis());
+                return;
+            }
+        }
+        if (interval > 0) {
+            val now = System.currentTimeMillis();
+            if (now >= nextRollTime) {
+                rollover(now);
+            }
+        }
+    }
+
+    private void rollover(long now) throws IOException {
+        writePending();
+        try {
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+        dirty = false;
+        val stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date(now));
+        val base = file.getPath() + '.' + stamp;
+        File segment = new File(base);
+        for (int i = 1; segment.exists() || new File(segment.getPath() + COMPRESSED_EXTENSION).exists(); ++i) {
+            segment = new File(base + '-' + i);
+        }
+        val rotated = file.renameTo(segment);
+        open(now);
+        if (!rotated) {
+            report("cannot rename {0} to {1}", file, segment);
+        } else { // compress in background
+            final File target = segment;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    compress(target);
+                    cleanup();
+                }
+            });
+        }
+    }
+
+    private void compress(File segment) {
+        val output = new File(segment.getPath() + COMPRESSED_EXTENSION);
+        try (val in = new BufferedInputStream(new FileInputStream(segment));
+             val out = new BufferedOutputStream(new FileOutputStream(output))) {
+            ZLibUtils.compress(in, out, Deflater.DEFAULT_COMPRESSION);
+        } catch (IOException e) {
+            report("failed to compress {0}: {1}", segment, e);
+            if (!output.delete()) {
+                report("cannot delete {0}", output);
+            }
+            return;
+        }
+        if (!segment.delete()) {
+            report("cannot delete {0}", segment);
+        }
+    }
+
+    private void cleanup() {
+        if (maxBackups == 0) {
+            return;
+        }
+        val prefix = file.getName() + '.';
+        val dir = file.getParentFile();
+        val segments = dir.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File f) {
+                val name = f.getName();
+                return f.isFile() && name.startsWith(prefix) && name.endsWith(COMPRESSED_EXTENSION);
+            }
+        });
+        if (segments == null || segments.length <= maxBackups) {
+            return;
+        }
+        Arrays.sort(segments, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(b.lastModified(), a.lastModified());
+            }
+        });
+        for (int i = maxBackups; i < segments.length; ++i) {
+            if (!segments[i].delete()) {
+                report("cannot delete {0}", segments[i]);
+            }
+        }
+    }
+
+    private void writePending() throws IOException {
+        if (pending.length() == 0) {
+            return;
+        }
+        val in = CharBuffer.wrap(pending);
+        encoder.reset();
+        while (encoder.encode(in, bytes, true).isOverflow()) {
+            writeBytes();
+        }
+        while (encoder.flush(bytes).isOverflow()) {
+            writeBytes();
+        }
+        writeBytes();
+        pending.setLength(0);
+    }
+
+    private void writeBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            size += channel.write(bytes);
+        }
+        bytes.clear();
+        dirty = true;
+    }
+
+    /**
+     * Reports error without {@link Log}, which may re-enter this appender while the lock is held.
+     */
+    private static void report(String format, Object... args) {
+        System.err.println(TAG + ": " + MessageTemplate.format(format, args));
+    }
+
+    @Override
+    public String toString() {
+        return "rolling:" + file;
+    }
+}
@@ -0,0 +1,458 @@
+/*
+ * Copyright 2017 Peng Wan <phylame@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pw.phylame.commons.util;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.val;
+import pw.phylame.commons.function.Provider;
+
+import java.util.*;
+
+/**
+ * Base of multi-maps storing values in flat arrays.
+ * <p>
+ * Each key is assigned an id, values of all keys are stored in one array and values of
+ * one key are chained by a parallel array of links. The storage is compacted when more
+ * than half of it is occupied by values of removed keys.
+ * <p>
+ * Ids are indexed by an open addressing table with linear probing. Subclasses store keys
+ * by id and provide hash of keys, this class is not thread-safe.
+ *
+ * @param <V> type of values
+ */
+public abstract class AbstractFlatMultiMap<V> {
+    protected static final int NIL = -1;
+
+    private static final int MIN_CAPACITY = 16;
+
+    /**
+     * Id of each slot plus one, {@literal 0} for empty slot.
+     */
+    private int[] slots;
+
+    private int mask;
+
+    private int threshold;
+
+    private Object[] values;
+
+    private int[] links;
+
+    /**
+     * Number of used slots in values.
+     */
+    private int used;
+
+    /**
+     * Number of slots holding values of removed keys.
+     */
+    private int garbage;
+
+    private int[] heads;
+
+    private int[] tails;
+
+    /**
+     * Number of values for each id, {@literal -1} for free id.
+     */
+    private int[] counts;
+
+    private int idCount;
+
+    private int freeId = NIL;
+
+    private int keyCount;
+
+    private int valueCount;
+
+    private int modCount;
+
+    protected AbstractFlatMultiMap(int expectedKeys, int expectedValues) {
+        Validate.require(expectedKeys >= 0, "expectedKeys < 0");
+        Validate.require(expectedValues >= 0, "expectedValues < 0");
+        val capacity = Math.max(MIN_CAPACITY, expectedValues);
+        values = new Object[capacity];
+        links = new int[capacity];
+        val idCapacity = Math.max(MIN_CAPACITY, expectedKeys);
+        heads = new int[idCapacity];
+        tails = new int[idCapacity];
+        counts = new int[idCapacity];
+        rehash(tableSizeFor(expectedKeys));
+    }
+
+    /**
+     * Returns hash code of the key with specified id.
+     */
+    protected abstract int hashOf(int id);
+
+    /**
+     * Grows storage of keys to specified number of ids.
+     */
+    protected abstract void growKeys(int capacity);
+
+    /**
+     * Drops the key of released id, for releasing references.
+     */
+    protected void clearKey(int id) {
+    }
+
+    /**
+     * Returns capacity of ids, initial size of key storage.
+     */
+    protected final int idCapacity() {
+        return heads.length;
+    }
+
+    /**
+     * Returns number of keys.
+     */
+    public final int size() {
+        return keyCount;
+    }
+
+    public final boolean isEmpty() {
+        return keyCount == 0;
+    }
+
+    /**
+     * Returns number of values of all keys.
+     */
+    public final int valueCount() {
+        return valueCount;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0);
+        Arrays.fill(values, 0, used, null);
+        used = 0;
+        garbage = 0;
+        idCount = 0;
+        freeId = NIL;
+        keyCount = 0;
+        valueCount = 0;
+        ++modCount;
+    }
+
+    /**
+     * Returns start slot for probing key with specified hash code.
+     */
+    protected final int firstSlot(int hash) {
+        return mix(hash) & mask;
+    }
+
+    protected final int nextSlot(int slot) {
+        return (slot + 1) & mask;
+    }
+
+    /**
+     * Returns id in the slot, {@link #NIL} for empty slot.
+     */
+    protected final int idAt(int slot) {
+        return slots[slot] - 1;
+    }
+
+    /**
+     * Assigns an id to a new key found missing at specified slot.
+     * <p>
+     * The subclass must store the key for returned id before next modification.
+     *
+     * @param slot the empty slot for the key, {@code ~slot} returned by probing
+     * @return id of the key
+     */
+    protected final int insertAt(int slot) {
+        val id = allocateId();
+        slots[slot] = id + 1;
+        return id;
+    }
+
+    /**
+     * Removes key in the slot and all its values.
+     *
+     * @param slot the slot, or negative for missing key
+     * @return number of removed values
+     */
+    protected final int removeAt(int slot) {
+        if (slot < 0) {
+            return 0;
+        }
+        val count = releaseId(idAt(slot));
+        delete(slot);
+        return count;
+    }
+
+
+    protected final int countAt(int slot) {
+        return slot < 0 ? 0 : counts[idAt(slot)];
+    }
+
+    protected final V firstAt(int slot) {
+        return slot < 0 ? null : firstOf(idAt(slot));
+    }
+
+    protected final List<V> listAt(int slot) {
+        return listOf(slot < 0 ? NIL : idAt(slot));
+    }
+
+    protected final <C extends Collection<? super V>> C collectAt(int slot, Provider<C> provider) {
+        return collectOf(slot < 0 ? NIL : idAt(slot), provider);
+    }
+
+    protected final Iterator<V> iteratorAt(int slot) {
+        return slot < 0 ? Collections.<V>emptyIterator() : iteratorOf(idAt(slot));
+    }
+
+    /**
+     * Returns ids of all keys in unspecified order.
+     */
+    protected final int[] liveIds() {
+        val ids = new int[keyCount];
+        for (int i = 0, j = 0; i < slots.length; ++i) {
+            if (slots[i] != 0) {
+                ids[j++] = slots[i] - 1;
+            }
+        }
+        return ids;
+    }
+
+    private int allocateId() {
+        int id;
+        if (freeId != NIL) {
+            id = freeId;
+            freeId = heads[id];
+        } else {
+            if (idCount == heads.length) {
+                val capacity = idCount + (idCount >> 1);
+                heads = Arrays.copyOf(heads, capacity);
+                tails = Arrays.copyOf(tails, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+                growKeys(capacity);
+            }
+            id = idCount++;
+        }
+        heads[id] = tails[id] = NIL;
+        counts[id] = 0;
+        ++keyCount;
+        return id;
+    }
+
+    /**
+     * Removes all values of the id and frees the id.
+     *
+     * @return number of removed values
+     */
+    private int releaseId(int id) {
+        val count = counts[id];
+        garbage += count;
+        valueCount -= count;
+        for (int i = heads[id]; i != NIL; i = links[i]) {
+            values[i] = null;
+        }
+        counts[id] = -1;
+        clearKey(id);
+        tails[id] = NIL;
+        heads[id] = freeId;
+        freeId = id;
+        --keyCount;
+        ++modCount;
+        if (garbage > MIN_CAPACITY && garbage > used >>> 1) {
+            compact(used - garbage);
+        }
+        return count;
+    }
+
+    /**
+     * Appends value to the key with specified id, the key must be stored already.
+     */
+    protected final void addValue(int id, V value) {
+        if (keyCount > threshold) {
+            rehash(slots.length << 1);
+        }
+        if (used == values.length) {
+            if (garbage > used >>> 2) {
+                compact(used - garbage);
+            }
+            if (used == values.length) {
+                val capacity = used + (used >> 1);
+                values = Arrays.copyOf(values, capacity);
+                links = Arrays.copyOf(links, capacity);
+            }
+        }
+        values[used] = value;
+        links[used] = NIL;
+        val tail = tails[id];
+        if (tail == NIL) {
+            heads[id] = used;
+        } else {
+            links[tail] = used;
+        }
+        tails[id] = used++;
+        ++counts[id];
+        ++valueCount;
+        ++modCount;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V firstOf(int id) {
+        return (V) values[heads[id]];
+    }
+
+    private Iterator<V> iteratorOf(final int id) {
+        return new Iterator<V>() {
+            private final int expectedModCount = modCount;
+
+            private int next = heads[id];
+
+            @Override
+            public boolean hasNext() {
+                return next != NIL;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V next() {
+                if (next == NIL) {
+                    throw new NoSuchElementException();
+                }
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                val value = (V) values[next];
+                next = links[next];
+                return value;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Adds values of the id to collection provided by specified provider.
+     */
+    @SneakyThrows(Exception.class)
+    private <C extends Collection<? super V>> C collectOf(int id, @NonNull Provider<C> provider) {
+        val c = provider.provide();
+        if (id != NIL) {
+            collectTo(id, c);
+        }
+        return c;
+    }
+
+    private List<V> listOf(int id) {
+        if (id == NIL) {
+            return Collections.emptyList();
+        }
+        val list = new ArrayList<V>(counts[id]);
+        collectTo(id, list);
+        return list;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void collectTo(int id, Collection<? super V> c) {
+        for (int i = heads[id]; i != NIL; i = links[i]) {
+            c.add((V) values[i]);
+        }
+    }
+
+    /**
+     * Moves values of live ids to the head of new arrays, keeping their order.
+     */
+    private void compact(int liveCount) {
+        val capacity = Math.max(MIN_CAPACITY, liveCount + (liveCount >> 1));
+        val newValues = new Object[capacity];
+        val newLinks = new int[capacity];
+        int pos = 0;
+        for (int id = 0; id < idCount; ++id) {
+            if (counts[id] <= 0) {
+                continue;
+            }
+            val head = pos;
+            for (int i = heads[id]; i != NIL; i = links[i]) {
+                newValues[pos] = values[i];
+                newLinks[pos] = pos + 1;
+                ++pos;
+            }
+            newLinks[pos - 1] = NIL;
+            heads[id] = head;
+            tails[id] = pos - 1;
+        }
+        values = newValues;
+        links = newLinks;
+        used = pos;
+        garbage = 0;
+        ++modCount;
+    }
+
+    /**
+     * Removes the slot by shifting following entries backward.
+     */
+    private void delete(int i) {
+        int j = i;
+        for (; ; ) {
+            j = (j + 1) & mask;
+            if (slots[j] == 0) {
+                break;
+            }
+            val k = mix(hashOf(slots[j] - 1)) & mask;
+            if (i <= j ? (k <= i || k > j) : (k <= i && k > j)) {
+                slots[i] = slots[j];
+                i = j;
+            }
+        }
+        slots[i] = 0;
+    }
+
+    /**
+     * Rebuilds the slot table, keys stay in place as they are stored by id.
+     */
+    private void rehash(int capacity) {
+        val oldSlots = slots;
+        slots = new int[capacity];
+        mask = capacity - 1;
+        threshold = capacity / 4 * 3;
+        if (oldSlots != null) {
+            for (val slot : oldSlots) {
+                if (slot != 0) {
+                    int i = mix(hashOf(slot - 1)) & mask;
+                    while (slots[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    slots[i] = slot;
+                }
+            }
+        }
+    }
+
+    /**
+     * Spreads bits of hash code for table index.
+     */
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns capacity of key table for specified number of keys, a power of two.
+     */
+    private static int tableSizeFor(int keys) {
+        val n = Math.max(MIN_CAPACITY, (int) Math.min(1L << 30, (long) keys * 4 / 3 + 1));
+        return Integer.highestOneBit(n - 1) << 1;
+    }
+}
@@ -20,6 +20,7 @@ import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.val;
 import pw.phylame.commons.function.Function;
+import pw.phylame.commons.function.Prediction;
 import pw.phylame.commons.io.IOUtils;
 
 import java.io.IOException;
@@ -106,12 +107,91 @@ public final class CollectionUtils {
         };
     }
 
+    /**
+     * Returns iterator transforming each element of specified iterator when it is requested.
+     */
     public static <E, T> Iterator<T> map(@NonNull Iterator<? extends E> i, @NonNull Function<? super E, ? extends T> transform) {
-        val results = new LinkedList<T>();
-        while (i.hasNext()) {
-            results.add(transform.apply(i.next()));
-        }
-        return results.iterator();
+        return new MappingIterator<E, T>(i, transform);
+    }
+
+    public static <E, T> Iterable<T> map(@NonNull final Iterable<? extends E> i, @NonNull final Function<? super E, ? extends T> transform) {
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return new MappingIterator<E, T>(i.iterator(), transform);
+            }
+        };
+    }
+
+    /**
+     * Returns iterator of elements in specified iterator that match the prediction.
+     */
+    public static <E> Iterator<E> filter(@NonNull Iterator<? extends E> i, @NonNull Prediction<? super E> prediction) {
+        return new FilteringIterator<>(i, prediction);
+    }
+
+    public static <E> Iterable<E> filter(@NonNull final Iterable<? extends E> i, @NonNull final Prediction<? super E> prediction) {
+        return new Iterable<E>() {
+            @Override
+            public Iterator<E> iterator() {
+                return new FilteringIterator<E>(i.iterator(), prediction);
+            }
+        };
+    }
+
+    /**
+     * Returns iterator of elements in iterables transformed from each element of specified iterator.
+     */
+    public static <E, T> Iterator<T> flatMap(@NonNull Iterator<? extends E> i,
+                                             @NonNull Function<? super E, ? extends Iterable<? extends T>> transform) {
+        return new FlatMappingIterator<E, T>(i, transform);
+    }
+
+    public static <E, T> Iterable<T> flatMap(@NonNull final Iterable<? extends E> i,
+                                             @NonNull final Function<? super E, ? extends Iterable<? extends T>> transform) {
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return new FlatMappingIterator<E, T>(i.iterator(), transform);
+            }
+        };
+    }
+
+    /**
+     * Returns iterator of at most {@code limit} elements of specified iterator.
+     */
+    public static <E> Iterator<E> limit(@NonNull Iterator<? extends E> i, int limit) {
+        Validate.require(limit >= 0, "limit < 0");
+        return new LimitedIterator<>(i, limit);
+    }
+
+    public static <E> Iterable<E> limit(@NonNull final Iterable<? extends E> i, final int limit) {
+        Validate.require(limit >= 0, "limit < 0");
+        return new Iterable<E>() {
+            @Override
+            public Iterator<E> iterator() {
+                return new LimitedIterator<E>(i.iterator(), limit);
+            }
+        };
+    }
+
+    /**
+     * Returns iterator of lists holding consecutive {@code size} elements of specified iterator,
+     * the last list may be shorter.
+     */
+    public static <E> Iterator<List<E>> chunk(@NonNull Iterator<? extends E> i, int size) {
+        Validate.require(size > 0, "size <= 0");
+        return new ChunkingIterator<>(i, size);
+    }
+
+    public static <E> Iterable<List<E>> chunk(@NonNull final Iterable<? extends E> i, final int size) {
+        Validate.require(size > 0, "size <= 0");
+        return new Iterable<List<E>>() {
+            @Override
+            public Iterator<List<E>> iterator() {
+                return new ChunkingIterator<E>(i.iterator(), size);
+            }
+        };
     }
 
     public static <K, V> V getOrElse(Map<K, V> m, K key, Function<K, ? extends V> supplier) {
@@ -325,4 +405,161 @@ public final class CollectionUtils {
         }
     }
 
+    @RequiredArgsConstructor
+    private static class MappingIterator<E, T> implements Iterator<T> {
+        private final Iterator<? extends E> i;
+        private final Function<? super E, ? extends T> transform;
+
+        @Override
+        public boolean hasNext() {
+            return i.hasNext();
+        }
+
+        @Override
+        public T next() {
+            return transform.apply(i.next());
+        }
+
+        @Override
+        public void remove() {
+            i.remove();
+        }
+    }
+
+    /**
+     * Iterator computing next element when requested.
+     */
+    private static abstract class LookAheadIterator<E> implements Iterator<E> {
+        private E next;
+
+        private boolean ready = false;
+
+        private boolean done = false;
+
+        /**
+         * Computes next element, calls {@link #endOfData()} if no more elements.
+         */
+        protected abstract E computeNext();
+
+        protected final E endOfData() {
+            done = true;
+            return null;
+        }
+
+        @Override
+        public final boolean hasNext() {
+            if (!ready && !done) {
+                next = computeNext();
+                ready = !done;
+            }
+            return ready;
+        }
+
+        @Override
+        public final E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            val e = next;
+            next = null;
+            ready = false;
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class FilteringIterator<E> extends LookAheadIterator<E> {
+        private final Iterator<? extends E> i;
+        private final Prediction<? super E> prediction;
+
+        @Override
+        protected E computeNext() {
+            while (i.hasNext()) {
+                val e = i.next();
+                if (prediction.test(e)) {
+                    return e;
+                }
+            }
+            return endOfData();
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class FlatMappingIterator<E, T> extends LookAheadIterator<T> {
+        private final Iterator<? extends E> i;
+        private final Function<? super E, ? extends Iterable<? extends T>> transform;
+        private Iterator<? extends T> current = Collections.emptyIterator();
+
+        @Override
+        protected T computeNext() {
+            while (!current.hasNext()) {
+                if (!i.hasNext()) {
+                    return endOfData();
+                }
+                val items = transform.apply(i.next());
+                current = items != null ? items.iterator() : Collections.<T>emptyIterator();
+            }
+            return current.next();
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class LimitedIterator<E> implements Iterator<E> {
+        private final Iterator<? extends E> i;
+        private final int limit;
+        private int count = 0;
+
+        @Override
+        public boolean hasNext() {
+            return count < limit && i.hasNext();
+        }
+
+        @Override
+        public E next() {
+            if (count >= limit) {
+                throw new NoSuchElementException();
+            }
+            val e = i.next();
+            ++count;
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            i.remove();
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class ChunkingIterator<E> implements Iterator<List<E>> {
+        private final Iterator<? extends E> i;
+        private final int size;
+
+        @Override
+        public boolean hasNext() {
+            return i.hasNext();
+        }
+
+        @Override
+        public List<E> next() {
+            if (!i.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            val list = new ArrayList<E>(Math.min(size, 1024));
+            do {
+                list.add(i.next());
+            } while (list.size() < size && i.hasNext());
+            return list;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
 }
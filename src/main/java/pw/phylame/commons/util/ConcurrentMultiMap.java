@@ -0,0 +1,282 @@
+/*
+ * Copyright 2017 Peng Wan <phylame@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pw.phylame.commons.util;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.val;
+import pw.phylame.commons.function.Provider;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Thread-safe multi-map.
+ * <p>
+ * Keys are held in a {@code ConcurrentHashMap}, values of each key are guarded by the
+ * lock of that key only, so threads adding values for different keys do not contend.
+ * An emptied key is removed atomically with its last value.
+ * <p>
+ * Values are returned as snapshots, iteration of keys is weakly consistent.
+ * {@code null} keys and values are not supported.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+public class ConcurrentMultiMap<K, V> {
+    private final ConcurrentMap<K, Bag<V>> map;
+
+    private final Provider<? extends Collection<V>> factory;
+
+    public ConcurrentMultiMap() {
+        this(16);
+    }
+
+    public ConcurrentMultiMap(int initialCapacity) {
+        this(initialCapacity, new Provider<Collection<V>>() {
+            @Override
+            public Collection<V> provide() {
+                return new ArrayList<>(4);
+            }
+        });
+    }
+
+    /**
+     * Constructs map with specified provider of value collection for each key.
+     * <p>
+     * The collections are accessed under lock of their keys, no need to be thread-safe.
+     */
+    public ConcurrentMultiMap(int initialCapacity, @NonNull Provider<? extends Collection<V>> factory) {
+        map = new ConcurrentHashMap<>(initialCapacity);
+        this.factory = factory;
+    }
+
+    /**
+     * Returns number of keys.
+     */
+    public int size() {
+        return map.size();
+    }
+
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    public boolean containsKey(@NonNull K key) {
+        return map.containsKey(key);
+    }
+
+    /**
+     * Returns number of values of the key.
+     */
+    public int count(@NonNull K key) {
+        val bag = map.get(key);
+        if (bag == null) {
+            return 0;
+        }
+        synchronized (bag) {
+            return bag.dead ? 0 : bag.values.size();
+        }
+    }
+
+    /**
+     * Returns snapshot of values of the key, empty list if the key not exists.
+     */
+    public List<V> get(@NonNull K key) {
+        val bag = map.get(key);
+        if (bag == null) {
+            return Collections.emptyList();
+        }
+        synchronized (bag) {
+            return bag.dead ? Collections.<V>emptyList() : new ArrayList<>(bag.values);
+        }
+    }
+
+    public V getOne(@NonNull K key) {
+        val bag = map.get(key);
+        if (bag == null) {
+            return null;
+        }
+        synchronized (bag) {
+            return bag.dead ? null : CollectionUtils.firstOf(bag.values);
+        }
+    }
+
+    public void addOne(@NonNull K key, @NonNull V value) {
+        for (; ; ) {
+            val bag = bagFor(key);
+            synchronized (bag) {
+                if (!bag.dead) {
+                    bag.values.add(value);
+                    return;
+                }
+            }
+        }
+    }
+
+    public void add(@NonNull K key, Collection<? extends V> values) {
+        if (CollectionUtils.isEmpty(values)) {
+            return;
+        }
+        for (; ; ) {
+            val bag = bagFor(key);
+            synchronized (bag) {
+                if (!bag.dead) {
+                    bag.values.addAll(values);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes one occurrence of the value, and removes the key if no values remaining.
+     *
+     * @return {@code true} if the value was removed
+     */
+    public boolean removeOne(@NonNull K key, @NonNull V value) {
+        val bag = map.get(key);
+        if (bag == null) {
+            return false;
+        }
+        synchronized (bag) {
+            if (bag.dead || !bag.values.remove(value)) {
+                return false;
+            }
+            if (bag.values.isEmpty()) {
+                bag.dead = true;
+                map.remove(key, bag);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Removes the key and returns its values.
+     */
+    public List<V> remove(@NonNull K key) {
+        val bag = map.remove(key);
+        if (bag == null) {
+            return Collections.emptyList();
+        }
+        synchronized (bag) {
+            bag.dead = true;
+            return new ArrayList<>(bag.values);
+        }
+    }
+
+    public void clear() {
+        for (val key : map.keySet()) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Returns weakly consistent view of keys, which supports removal.
+     */
+    public Set<K> keySet() {
+        return new AbstractSet<K>() {
+            @Override
+            public Iterator<K> iterator() {
+                val i = map.keySet().iterator();
+                return new Iterator<K>() {
+                    private K last;
+
+                    @Override
+                    public boolean hasNext() {
+                        return i.hasNext();
+                    }
+
+                    @Override
+                    public K next() {
+                        return last = i.next();
+                    }
+
+                    @Override
+                    public void remove() {
+                        Validate.check(last != null, "next() not called");
+                        ConcurrentMultiMap.this.remove(last);
+                        last = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return map.containsKey(o);
+            }
+        };
+    }
+
+    /**
+     * Returns snapshot of all keys and their values.
+     * <p>
+     * Values of each key are consistent, the whole map is not an atomic snapshot.
+     */
+    public Map<K, List<V>> snapshot() {
+        val result = new HashMap<K, List<V>>(map.size() * 4 / 3 + 1);
+        for (val e : map.entrySet()) {
+            val bag = e.getValue();
+            synchronized (bag) {
+                if (!bag.dead) {
+                    result.put(e.getKey(), new ArrayList<>(bag.values));
+                }
+            }
+        }
+        return result;
+    }
+
+    @SneakyThrows(Exception.class)
+    private Bag<V> bagFor(K key) {
+        Bag<V> bag = map.get(key);
+        if (bag == null) {
+            val created = new Bag<V>(factory.provide());
+            bag = map.putIfAbsent(key, created);
+            if (bag == null) {
+                bag = created;
+            }
+        }
+        return bag;
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    /**
+     * Values of one key, guarded by its monitor.
+     */
+    private static final class Bag<V> {
+        private final Collection<V> values;
+
+        /**
+         * The bag is removed from the map, adding should retry with a new bag.
+         */
+        private boolean dead = false;
+
+        Bag(Collection<V> values) {
+            this.values = values;
+        }
+    }
+}
@@ -20,10 +20,9 @@ import lombok.NonNull;
 import lombok.val;
 
 import java.text.ParseException;
+import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.Locale;
+import java.util.*;
 
 public final class DateUtils {
     private DateUtils() {
@@ -39,16 +38,39 @@ public final class DateUtils {
 
     public static final String ANSIC_FORMAT = "EEE MMM d HH:mm:ss z yyyy";
 
+    /**
+     * Max number of cached formats for each thread.
+     */
+    private static final int MAX_CACHED_FORMATS = 64;
+
+    /**
+     * Per-thread cached formats with default locale, {@code SimpleDateFormat} is not thread-safe.
+     */
+    private static final FormatCache localFormats = new FormatCache(null);
+
+    /**
+     * Per-thread cached formats with English locale.
+     */
+    private static final FormatCache englishFormats = new FormatCache(Locale.ENGLISH);
+
+    private static SimpleDateFormat localFormat(String pattern) {
+        return localFormats.formatFor(pattern);
+    }
+
+    private static SimpleDateFormat englishFormat(String pattern) {
+        return englishFormats.formatFor(pattern);
+    }
+
     public static String toISO(@NonNull Date date) {
-        return new SimpleDateFormat(ISO_FORMAT).format(date);
+        return localFormat(ISO_FORMAT).format(date);
     }
 
     public static Date forISO(@NonNull String str) throws ParseException {
-        return new SimpleDateFormat(ISO_FORMAT).parse(str);
+        return parse(localFormat(ISO_FORMAT), str);
     }
 
     public static String toRFC1123(@NonNull Date date) {
-        return new SimpleDateFormat(RFC1123_FORMAT, Locale.ENGLISH).format(date);
+        return englishFormat(RFC1123_FORMAT).format(date);
     }
 
     public static String toRFC822(@NonNull Date date) {
@@ -56,7 +78,7 @@ public final class DateUtils {
     }
 
     public static Date forRFC1123(@NonNull String str) throws ParseException {
-        return new SimpleDateFormat(RFC1123_FORMAT, Locale.ENGLISH).parse(str);
+        return parse(englishFormat(RFC1123_FORMAT), str);
     }
 
     public static Date forRFC822(@NonNull String str) throws ParseException {
@@ -64,7 +86,7 @@ public final class DateUtils {
     }
 
     public static String toRFC1036(@NonNull Date date) {
-        return new SimpleDateFormat(RFC1036_FORMAT, Locale.ENGLISH).format(date);
+        return englishFormat(RFC1036_FORMAT).format(date);
     }
 
     public static String toRFC850(@NonNull Date date) {
@@ -72,7 +94,7 @@ public final class DateUtils {
     }
 
     public static Date forRFC1036(@NonNull String str) throws ParseException {
-        return new SimpleDateFormat(RFC1036_FORMAT, Locale.ENGLISH).parse(str);
+        return parse(englishFormat(RFC1036_FORMAT), str);
     }
 
     public static Date forRFC850(@NonNull String str) throws ParseException {
@@ -80,53 +102,130 @@ public final class DateUtils {
     }
 
     public static String toANSIC(@NonNull Date date) {
-        return new SimpleDateFormat(ANSIC_FORMAT, Locale.ENGLISH).format(date);
+        return englishFormat(ANSIC_FORMAT).format(date);
     }
 
     public static Date forANSIC(@NonNull String str) throws ParseException {
-        return new SimpleDateFormat(ANSIC_FORMAT, Locale.ENGLISH).parse(str);
+        return parse(englishFormat(ANSIC_FORMAT), str);
     }
 
+    /**
+     * Parses date in ISO, RFC1123, RFC1036 or ANSI C format.
+     * <p>
+     * The format is detected from the shape of the string, other formats are tried only
+     * when the detected one fails, and no exception is thrown in any case.
+     *
+     * @param str          the string
+     * @param defaultValue value returned if the string cannot be parsed
+     * @return the date or {@code defaultValue}
+     */
     public static Date parseDate(String str, Date defaultValue) {
         if (StringUtils.isEmpty(str)) {
             return defaultValue;
         }
-        try {
-            return forISO(str);
-        } catch (ParseException ignored) {
+        val detected = detectFormat(str);
+        Date date;
+        if (detected != null && (date = tryParse(str, detected)) != null) {
+            return date;
         }
-        try {
-            return forRFC1123(str);
-        } catch (ParseException ignored) {
+        for (val format : DATE_FORMATS) {
+            if (format != detected && (date = tryParse(str, format)) != null) {
+                return date;
+            }
         }
-        try {
-            return forRFC1036(str);
-        } catch (ParseException ignored) {
+        return defaultValue;
+    }
+
+    private static final String[] DATE_FORMATS = {ISO_FORMAT, RFC1123_FORMAT, RFC1036_FORMAT, ANSIC_FORMAT};
+
+    /**
+     * Detects format of date string by its leading characters.
+     * <ul>
+     * <li>ISO: {@code 1994-11-06 ...}</li>
+     * <li>RFC1123: {@code Sun, 06 Nov 1994 ...}</li>
+     * <li>RFC1036: {@code Sunday, 06-Nov-94 ...}</li>
+     * <li>ANSI C: {@code Sun Nov 6 ...}</li>
+     * </ul>
+     *
+     * @param str the string
+     * @return one of the format patterns or {@code null} if unknown
+     */
+    private static String detectFormat(String str) {
+        val end = str.length();
+        int i = 0;
+        while (i < end && Character.isDigit(str.charAt(i))) {
+            ++i;
+        }
+        if (i != 0) {
+            return i < end && str.charAt(i) == '-' ? ISO_FORMAT : null;
+        }
+        while (i < end && Character.isLetter(str.charAt(i))) {
+            ++i;
+        }
+        if (i == 0 || i == end) {
+            return null;
+        }
+        if (str.charAt(i) == ' ') {
+            return ANSIC_FORMAT;
+        } else if (str.charAt(i) != ',') {
+            return null;
+        }
+        ++i;
+        while (i < end && str.charAt(i) == ' ') {
+            ++i;
+        }
+        while (i < end && Character.isDigit(str.charAt(i))) {
+            ++i;
+        }
+        return i < end && str.charAt(i) == '-' ? RFC1036_FORMAT : RFC1123_FORMAT;
+    }
+
+    private static Date tryParse(String str, String format) {
+        return tryParse(format == ISO_FORMAT ? localFormat(format) : englishFormat(format), str);
+    }
+
+    /**
+     * Parses string with specified format without throwing {@code ParseException}.
+     */
+    private static Date tryParse(SimpleDateFormat format, String str) {
+        val pos = new ParsePosition(0);
+        val date = parse(format, str, pos);
+        return pos.getIndex() != 0 ? date : null;
+    }
+
+    private static Date parse(SimpleDateFormat format, String str) throws ParseException {
+        val pos = new ParsePosition(0);
+        val date = parse(format, str, pos);
+        if (pos.getIndex() == 0) {
+            throw new ParseException("Unparseable date: \"" + str + "\"", pos.getErrorIndex());
         }
+        return date;
+    }
+
+    private static Date parse(SimpleDateFormat format, String str, ParsePosition pos) {
+        // parsing zone text changes time zone of the format, restore it for cached format
+        val zone = format.getTimeZone();
         try {
-            return forANSIC(str);
-        } catch (ParseException e) {
-            return defaultValue;
+            return format.parse(str, pos);
+        } finally {
+            format.setTimeZone(zone);
         }
     }
 
     public static String format(@NonNull Date date, @NonNull String format) {
-        return new SimpleDateFormat(format).format(date);
+        return localFormat(format).format(date);
     }
 
     public static Date parse(@NonNull String str, @NonNull String format) throws ParseException {
-        return new SimpleDateFormat(format).parse(str);
+        return parse(localFormat(format), str);
     }
 
     public static Date parse(String str, @NonNull String format, Date fallback) {
         if (StringUtils.isEmpty(str)) {
             return fallback;
         }
-        try {
-            return new SimpleDateFormat(format).parse(str);
-        } catch (ParseException e) {
-            return fallback;
-        }
+        val date = tryParse(localFormat(format), str);
+        return date != null ? date : fallback;
     }
 
     public static Date calculate(@NonNull Date date, char unit, int amount) {
@@ -164,4 +263,30 @@ public final class DateUtils {
         calendar.add(field, amount);
         return calendar.getTime();
     }
+
+    private static class FormatCache extends ThreadLocal<Map<String, SimpleDateFormat>> {
+        private final Locale locale;
+
+        private FormatCache(Locale locale) {
+            this.locale = locale;
+        }
+
+        @Override
+        protected Map<String, SimpleDateFormat> initialValue() {
+            return new HashMap<>();
+        }
+
+        private SimpleDateFormat formatFor(String pattern) {
+            val cache = get();
+            SimpleDateFormat format = cache.get(pattern);
+            if (format == null) {
+                if (cache.size() >= MAX_CACHED_FORMATS) {
+                    cache.clear();
+                }
+                format = locale != null ? new SimpleDateFormat(pattern, locale) : new SimpleDateFormat(pattern);
+                cache.put(pattern, format);
+            }
+            return format;
+        }
+    }
 }
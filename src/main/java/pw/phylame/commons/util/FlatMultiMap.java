@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017 Peng Wan <phylame@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pw.phylame.commons.util;
+
+import lombok.NonNull;
+import lombok.val;
+import pw.phylame.commons.function.Provider;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compact multi-map with object keys.
+ * <p>
+ * Keys are stored in flat array, values are stored as described in
+ * {@link AbstractFlatMultiMap}. Compared to {@link MultiMap}, no entry or collection
+ * is created for each key. {@code null} key is not supported.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+public class FlatMultiMap<K, V> extends AbstractFlatMultiMap<V> {
+    /**
+     * Keys indexed by id.
+     */
+    private Object[] keys;
+
+    public FlatMultiMap() {
+        this(0, 0);
+    }
+
+    public FlatMultiMap(int expectedKeys, int expectedValues) {
+        super(expectedKeys, expectedValues);
+        keys = new Object[idCapacity()];
+    }
+
+    public boolean containsKey(@NonNull K key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Returns number of values of the key.
+     */
+    public int count(@NonNull K key) {
+        return countAt(find(key));
+    }
+
+    /**
+     * Returns the first value of the key, or {@code null} if the key not exists.
+     */
+    public V getOne(@NonNull K key) {
+        return firstAt(find(key));
+    }
+
+    /**
+     * Returns a copy of values of the key, empty list if the key not exists.
+     */
+    public List<V> get(@NonNull K key) {
+        return listAt(find(key));
+    }
+
+    /**
+     * Adds values of the key to collection created by the provider.
+     */
+    public <C extends Collection<? super V>> C get(@NonNull K key, Provider<C> provider) {
+        return collectAt(find(key), provider);
+    }
+
+    /**
+     * Returns iterator of values of the key, the map cannot be modified while iterating.
+     */
+    public Iterator<V> iterator(@NonNull K key) {
+        return iteratorAt(find(key));
+    }
+
+    public void add(@NonNull K key, V value) {
+        int slot = find(key), id;
+        if (slot < 0) {
+            id = insertAt(~slot);
+            keys[id] = key;
+        } else {
+            id = idAt(slot);
+        }
+        addValue(id, value);
+    }
+
+    /**
+     * Removes the key and all its values.
+     *
+     * @return number of removed values
+     */
+    public int remove(@NonNull K key) {
+        return removeAt(find(key));
+    }
+
+    /**
+     * Returns all keys in unspecified order.
+     */
+    @SuppressWarnings("unchecked")
+    public Set<K> keys() {
+        val ids = liveIds();
+        val result = new HashSet<K>(ids.length * 4 / 3 + 1);
+        for (val id : ids) {
+            result.add((K) keys[id]);
+        }
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        Arrays.fill(keys, null);
+    }
+
+    @Override
+    protected int hashOf(int id) {
+        return keys[id].hashCode();
+    }
+
+    @Override
+    protected void growKeys(int capacity) {
+        keys = Arrays.copyOf(keys, capacity);
+    }
+
+    @Override
+    protected void clearKey(int id) {
+        keys[id] = null;
+    }
+
+    /**
+     * Returns slot of the key, or {@code ~slot} for inserting if not found.
+     */
+    private int find(Object key) {
+        int i = firstSlot(key.hashCode()), id;
+        while ((id = idAt(i)) != NIL) {
+            if (key.equals(keys[id])) {
+                return i;
+            }
+            i = nextSlot(i);
+        }
+        return ~i;
+    }
+}
@@ -23,7 +23,12 @@ import pw.phylame.commons.io.IOUtils;
 import pw.phylame.commons.log.Log;
 
 import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.concurrent.locks.ReentrantLock;
 
 public final class Implementor<T> {
@@ -33,8 +38,15 @@ public final class Implementor<T> {
     private final boolean reusable;
     private final ClassLoader loader;
 
+    /**
+     * Lock for updating registry, reading is lock-free.
+     */
     private final ReentrantLock lock = new ReentrantLock();
-    private final Map<String, ImpHolder<T>> impHolders = new LinkedHashMap<>();
+
+    /**
+     * Copy-on-write snapshot of registry, never be modified after published.
+     */
+    private volatile Map<String, ImpHolder<T>> impHolders = Collections.emptyMap();
 
     /**
      * Constructs a reusable instance for specified type.
@@ -80,17 +92,7 @@ public final class Implementor<T> {
     public final void register(String name, String path) {
         Validate.requireNotEmpty(name, "name cannot be null or empty");
         Validate.requireNotEmpty(path, "path cannot be null or empty");
-        lock.lock();
-        try {
-            val imp = impHolders.get(name);
-            if (imp != null) {
-                imp.reset().path = path;
-            } else {
-                impHolders.put(name, new ImpHolder<T>(path));
-            }
-        } finally {
-            lock.unlock();
-        }
+        update(Collections.singletonMap(name, new ImpHolder<T>(path, null)), null);
     }
 
     /**
@@ -103,14 +105,26 @@ public final class Implementor<T> {
      */
     public final void register(String name, @NonNull Class<? extends T> clazz) {
         Validate.requireNotEmpty(name, "name cannot be null or empty");
+        update(Collections.singletonMap(name, new ImpHolder<T>(null, clazz)), null);
+    }
+
+    /**
+     * Publishes new snapshot of registry with specified changes.
+     *
+     * @param holders holders to be put, may be {@code null}
+     * @param removed name of holder to be removed, may be {@code null}
+     */
+    private void update(Map<String, ImpHolder<T>> holders, String removed) {
         lock.lock();
         try {
-            val imp = impHolders.get(name);
-            if (imp != null) {
-                imp.reset().clazz = clazz;
-            } else {
-                impHolders.put(name, new ImpHolder<>(clazz));
+            val m = new LinkedHashMap<String, ImpHolder<T>>(impHolders);
+            if (holders != null) {
+                m.putAll(holders);
             }
+            if (removed != null) {
+                m.remove(removed);
+            }
+            impHolders = Collections.unmodifiableMap(m);
         } finally {
             lock.unlock();
         }
@@ -122,12 +136,7 @@ public final class Implementor<T> {
      * @return the set of names
      */
     public final Set<String> names() {
-        lock.lock();
-        try {
-            return Collections.unmodifiableSet(impHolders.keySet());
-        } finally {
-            lock.unlock();
-        }
+        return impHolders.keySet();
     }
 
     /**
@@ -137,12 +146,7 @@ public final class Implementor<T> {
      * @return {@literal true} if registered, otherwise {@literal false}
      */
     public final boolean contains(String name) {
-        lock.lock();
-        try {
-            return impHolders.containsKey(name);
-        } finally {
-            lock.unlock();
-        }
+        return impHolders.containsKey(name);
     }
 
     /**
@@ -151,12 +155,7 @@ public final class Implementor<T> {
      * @param name name of the implementation
      */
     public final void remove(String name) {
-        lock.lock();
-        try {
-            impHolders.remove(name);
-        } finally {
-            lock.unlock();
-        }
+        update(null, name);
     }
 
     /**
@@ -177,15 +176,10 @@ public final class Implementor<T> {
      * @throws ReflectiveOperationException if the instance or implementation class cannot be created
      */
     public final T getInstance(@NonNull String name, ClassLoader loader) throws ReflectiveOperationException {
-        lock.lock();
-        try {
-            val imp = impHolders.get(name);
-            return imp != null
-                    ? imp.instantiate(type, loader != null ? loader : this.loader, reusable)
-                    : null;
-        } finally {
-            lock.unlock();
-        }
+        val imp = impHolders.get(name);
+        return imp != null
+                ? imp.instantiate(type, loader != null ? loader : this.loader, reusable)
+                : null;
     }
 
     /**
@@ -197,12 +191,7 @@ public final class Implementor<T> {
      * @param parser the parser for parse the value in each line
      */
     public final void load(String path, BiFunction<String, String, String> parser) {
-        lock.lock();
-        try {
-            load(path, loader, parser);
-        } finally {
-            lock.unlock();
-        }
+        load(path, loader, parser);
     }
 
     /**
@@ -215,50 +204,111 @@ public final class Implementor<T> {
      * @param parser the parser for parse the value in each line
      */
     public final void load(String path, ClassLoader loader, BiFunction<String, String, String> parser) {
-        lock.lock();
-        try {
-            val urls = IOUtils.resourcesFor(path, loader);
-            if (urls == null) {
-                return;
+        val urls = IOUtils.resourcesFor(path, loader);
+        if (urls == null) {
+            return;
+        }
+        val holders = new LinkedHashMap<String, ImpHolder<T>>();
+        for (val url : urls) {
+            try (val in = url.openStream()) {
+                val prop = new Properties();
+                prop.load(in);
+                for (val e : prop.entrySet()) {
+                    val name = e.getKey().toString();
+                    val value = e.getValue().toString();
+                    val imp = parser == null ? value.trim() : parser.apply(name, value);
+                    Validate.requireNotEmpty(name, "name cannot be null or empty");
+                    Validate.requireNotEmpty(imp, "path cannot be null or empty");
+                    holders.put(name, new ImpHolder<T>(imp, null));
+                }
+            } catch (IOException e) {
+                Log.e(TAG, e);
             }
-            for (val url : urls) {
-                try (val in = url.openStream()) {
-                    val prop = new Properties();
-                    prop.load(in);
-                    for (val e : prop.entrySet()) {
-                        val name = e.getKey().toString();
-                        val value = e.getValue().toString();
-                        register(name, parser == null ? value.trim() : parser.apply(name, value));
+        }
+        if (!holders.isEmpty()) {
+            update(holders, null);
+        }
+    }
+
+    /**
+     * Resolves and links all registered implementations in parallel.
+     * <p>
+     * Classes are loaded and initialized, and their constructors are compiled, so that
+     * the first {@link #getInstance(String)} of each implementation is fast.
+     *
+     * @return number of implementations resolved successfully
+     */
+    public final int preload() {
+        val size = impHolders.size();
+        if (size == 0) {
+            return 0;
+        }
+        val executor = Executors.newFixedThreadPool(Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), size)));
+        try {
+            return preload(executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Resolves and links all registered implementations with specified executor.
+     *
+     * @param executor the executor for loading classes
+     * @return number of implementations resolved successfully
+     * @see #preload()
+     */
+    public final int preload(@NonNull ExecutorService executor) {
+        val holders = impHolders;
+        val tasks = new ArrayList<Callable<Boolean>>(holders.size());
+        for (val e : holders.entrySet()) {
+            val name = e.getKey();
+            val imp = e.getValue();
+            tasks.add(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    try {
+                        return imp.creator(type, loader) != null;
+                    } catch (ReflectiveOperationException | LinkageError ex) {
+                        Log.e(TAG, "cannot preload {0}: {1}", name, ex);
+                        return false;
+                    }
+                }
+            });
+        }
+        int count = 0;
+        try {
+            for (val future : executor.invokeAll(tasks)) {
+                try {
+                    if (future.get()) {
+                        ++count;
                     }
-                } catch (IOException e) {
-                    Log.e(TAG, e);
+                } catch (ExecutionException e) {
+                    Log.e(TAG, e.getCause());
                 }
             }
-        } finally {
-            lock.unlock();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        return count;
     }
 
     private static class ImpHolder<T> {
-        private String path;
-        private T cache = null;
-        private Class<? extends T> clazz;
+        /**
+         * Type of compiled constructor: ()Object.
+         */
+        private static final MethodType CREATOR_TYPE = MethodType.methodType(Object.class);
 
-        private ImpHolder(String path) {
-            this.path = path;
-        }
+        private final String path;
+        private volatile T cache = null;
+        private volatile Class<? extends T> clazz;
+        private volatile MethodHandle creator;
 
-        private ImpHolder(Class<? extends T> clazz) {
+        private ImpHolder(String path, Class<? extends T> clazz) {
+            this.path = path;
             this.clazz = clazz;
         }
 
-        private ImpHolder reset() {
-            path = null;
-            clazz = null;
-            cache = null;
-            return this;
-        }
-
         /**
          * Creates a new instance of implement for {@code T}.
          *
@@ -266,25 +316,81 @@ public final class Implementor<T> {
          * @return the new instance or {@code null} if class for path does not extends from {@code T}.
          * @throws ReflectiveOperationException if the instance or implementation class cannot be created
          */
-        @SuppressWarnings("unchecked")
         private T instantiate(Class<T> type, ClassLoader loader, boolean reusable) throws ReflectiveOperationException {
-            if (reusable && cache != null) {
-                return cache;
+            T inst = cache;
+            if (reusable && inst != null) {
+                return inst;
+            }
+            val creator = creator(type, loader);
+            if (creator == null) {
+                return null;
+            }
+            if (!reusable) {
+                return create(creator);
+            }
+            synchronized (this) {
+                inst = cache;
+                if (inst == null) {
+                    cache = inst = create(creator);
+                }
+                return inst;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private T create(MethodHandle creator) throws ReflectiveOperationException {
+            try {
+                return (T) (Object) creator.invokeExact();
+            } catch (RuntimeException | Error | ReflectiveOperationException e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+        }
+
+        /**
+         * Returns the compiled no-arg constructor of the implementation.
+         *
+         * @return the handle or {@code null} if class for path does not extends from {@code T}.
+         * @throws ReflectiveOperationException if the implementation class or constructor is not found
+         */
+        private MethodHandle creator(Class<T> type, ClassLoader loader) throws ReflectiveOperationException {
+            MethodHandle handle = creator;
+            if (handle != null) {
+                return handle;
             }
-            if (clazz == null) {
-                Validate.checkNotNull(path, "No path and class specified");
-                val klass = loader != null ? Class.forName(path, true, loader) : Class.forName(path);
-                if (!type.isAssignableFrom(klass)) {
-                    Log.d(TAG, "{1} not extend or implement {2}", klass.getName(), type.getName());
-                    return null;
+            synchronized (this) {
+                if (creator == null) {
+                    val klass = resolve(type, loader);
+                    if (klass == null) {
+                        return null;
+                    }
+                    creator = MethodHandles.lookup()
+                            .findConstructor(klass, MethodType.methodType(void.class))
+                            .asType(CREATOR_TYPE);
                 }
-                clazz = (Class<T>) klass;
+                return creator;
             }
-            val inst = clazz.newInstance();
-            if (reusable) {
-                cache = inst;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Class<? extends T> resolve(Class<T> type, ClassLoader loader) throws ClassNotFoundException {
+            Class<? extends T> klass = clazz;
+            if (klass != null) {
+                return klass;
+            }
+            synchronized (this) {
+                if (clazz == null) {
+                    Validate.checkNotNull(path, "No path and class specified");
+                    val c = loader != null ? Class.forName(path, true, loader) : Class.forName(path);
+                    if (!type.isAssignableFrom(c)) {
+                        Log.d(TAG, "{0} not extend or implement {1}", c.getName(), type.getName());
+                        return null;
+                    }
+                    clazz = (Class<T>) c;
+                }
+                return clazz;
             }
-            return inst;
         }
     }
 }
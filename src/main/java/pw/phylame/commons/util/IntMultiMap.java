@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 Peng Wan <phylame@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pw.phylame.commons.util;
+
+import lombok.val;
+import pw.phylame.commons.function.Provider;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Compact multi-map with {@code int} keys.
+ * <p>
+ * Keys are stored without boxing, values are stored as described in
+ * {@link AbstractFlatMultiMap}.
+ *
+ * @param <V> type of values
+ */
+public class IntMultiMap<V> extends AbstractFlatMultiMap<V> {
+    /**
+     * Keys indexed by id.
+     */
+    private int[] keys;
+
+    public IntMultiMap() {
+        this(0, 0);
+    }
+
+    public IntMultiMap(int expectedKeys, int expectedValues) {
+        super(expectedKeys, expectedValues);
+        keys = new int[idCapacity()];
+    }
+
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Returns number of values of the key.
+     */
+    public int count(int key) {
+        return countAt(find(key));
+    }
+
+    /**
+     * Returns the first value of the key, or {@code null} if the key not exists.
+     */
+    public V getOne(int key) {
+        return firstAt(find(key));
+    }
+
+    /**
+     * Returns a copy of values of the key, empty list if the key not exists.
+     */
+    public List<V> get(int key) {
+        return listAt(find(key));
+    }
+
+    /**
+     * Adds values of the key to collection created by the provider.
+     */
+    public <C extends Collection<? super V>> C get(int key, Provider<C> provider) {
+        return collectAt(find(key), provider);
+    }
+
+    /**
+     * Returns iterator of values of the key, the map cannot be modified while iterating.
+     */
+    public Iterator<V> iterator(int key) {
+        return iteratorAt(find(key));
+    }
+
+    public void add(int key, V value) {
+        int slot = find(key), id;
+        if (slot < 0) {
+            id = insertAt(~slot);
+            keys[id] = key;
+        } else {
+            id = idAt(slot);
+        }
+        addValue(id, value);
+    }
+
+    /**
+     * Removes the key and all its values.
+     *
+     * @return number of removed values
+     */
+    public int remove(int key) {
+        return removeAt(find(key));
+    }
+
+    /**
+     * Returns all keys in unspecified order.
+     */
+    public int[] keys() {
+        val ids = liveIds();
+        val result = new int[ids.length];
+        for (int i = 0; i < ids.length; ++i) {
+            result[i] = keys[ids[i]];
+        }
+        return result;
+    }
+
+    @Override
+    protected int hashOf(int id) {
+        return keys[id];
+    }
+
+    @Override
+    protected void growKeys(int capacity) {
+        keys = Arrays.copyOf(keys, capacity);
+    }
+
+    /**
+     * Returns slot of the key, or {@code ~slot} for inserting if not found.
+     */
+    private int find(int key) {
+        int i = firstSlot(key), id;
+        while ((id = idAt(i)) != NIL) {
+            if (keys[id] == key) {
+                return i;
+            }
+            i = nextSlot(i);
+        }
+        return ~i;
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2017 Peng Wan <phylame@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pw.phylame.commons.util;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.val;
+
+import java.nio.CharBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lines of text represented as offsets into the source.
+ * <p>
+ * Line separators {@code \n}, {@code \r\n} and {@code \r} are recognized. No string is
+ * created until {@link #getLine(int)} is called.
+ */
+public final class LineView {
+    /**
+     * The source text.
+     */
+    @Getter
+    private final CharSequence source;
+
+    private int[] starts;
+
+    private int[] ends;
+
+    private int size = 0;
+
+    private LineView(CharSequence source, int capacity) {
+        this.source = source;
+        starts = new int[capacity];
+        ends = new int[capacity];
+    }
+
+    /**
+     * Splits lines of specified text.
+     *
+     * @param cs        the text
+     * @param skipEmpty {@literal true} to skip empty line
+     * @return the view of lines
+     */
+    public static LineView of(@NonNull CharSequence cs, boolean skipEmpty) {
+        val view = new LineView(cs, 16);
+        if (cs instanceof String) {
+            view.scan((String) cs, skipEmpty);
+        } else {
+            view.scan(cs, 0, cs.length(), skipEmpty);
+        }
+        return view;
+    }
+
+    /**
+     * Splits lines of specified area of char array, offsets are relative to {@code off}.
+     */
+    public static LineView of(@NonNull char[] chars, int off, int len, boolean skipEmpty) {
+        val view = new LineView(CharBuffer.wrap(chars, off, len).slice(), 16);
+        view.scan(chars, off, off + len, skipEmpty);
+        return view;
+    }
+
+    /**
+     * Returns number of lines.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns start offset of the line in source, inclusive.
+     */
+    public int start(int index) {
+        checkIndex(index);
+        return starts[index];
+    }
+
+    /**
+     * Returns end offset of the line in source, exclusive, not including the separator.
+     */
+    public int end(int index) {
+        checkIndex(index);
+        return ends[index];
+    }
+
+    public int length(int index) {
+        checkIndex(index);
+        return ends[index] - starts[index];
+    }
+
+    /**
+     * Returns text of the line.
+     */
+    public String getLine(int index) {
+        checkIndex(index);
+        return source.subSequence(starts[index], ends[index]).toString();
+    }
+
+    /**
+     * Tests if the line contains only whitespaces, without copying the line.
+     */
+    public boolean isBlank(int index) {
+        checkIndex(index);
+        return StringUtils.isBlank(source, starts[index], ends[index]);
+    }
+
+    /**
+     * Returns list of lines, each line is created when requested.
+     */
+    public List<String> asList() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return getLine(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+    }
+
+    private void add(int start, int end, boolean skipEmpty) {
+        if (skipEmpty && start == end) {
+            return;
+        }
+        if (size == starts.length) {
+            val capacity = size + (size >> 1);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        starts[size] = start;
+        ends[size++] = end;
+    }
+
+    /**
+     * Scans string with {@code String.indexOf}, which is intrinsic in most JVMs.
+     */
+    private void scan(String str, boolean skipEmpty) {
+        val end = str.length();
+        int begin = 0;
+        int cr = str.indexOf('\r');
+        if (cr < 0) {
+            for (int lf; (lf = str.indexOf('\n', begin)) >= 0; begin = lf + 1) {
+                add(begin, lf, skipEmpty);
+            }
+        } else {
+            int lf = str.indexOf('\n');
+            while (lf >= 0 || cr >= 0) {
+                if (cr < 0 || (lf >= 0 && lf < cr)) { // \n
+                    add(begin, lf, skipEmpty);
+                    begin = lf + 1;
+                } else if (cr + 1 == lf) { // \r\n
+                    add(begin, cr, skipEmpty);
+                    begin = lf + 1;
+                } else { // \r
+                    add(begin, cr, skipEmpty);
+                    begin = cr + 1;
+                }
+                if (lf >= 0 && lf < begin) {
+                    lf = str.indexOf('\n', begin);
+                }
+                if (cr >= 0 && cr < begin) {
+                    cr = str.indexOf('\r', begin);
+                }
+            }
+        }
+        add(begin, end, skipEmpty);
+    }
+
+    private void scan(char[] chars, int from, int to, boolean skipEmpty) {
+        int begin = from;
+        for (int i = from; i < to; ++i) {
+            val ch = chars[i];
+            if (ch > '\r') {
+                continue;
+            }
+            if (ch == '\n') {
+                add(begin - from, i - from, skipEmpty);
+                begin = i + 1;
+            } else if (ch == '\r') {
+                add(begin - from, i - from, skipEmpty);
+                if (i + 1 < to && chars[i + 1] == '\n') {
+                    ++i;
+                }
+                begin = i + 1;
+            }
+        }
+        add(begin - from, to - from, skipEmpty);
+    }
+
+    private void scan(CharSequence cs, int from, int to, boolean skipEmpty) {
+        int begin = from;
+        for (int i = from; i < to; ++i) {
+            val ch = cs.charAt(i);
+            if (ch > '\r') {
+                continue;
+            }
+            if (ch == '\n') {
+                add(begin, i, skipEmpty);
+                begin = i + 1;
+            } else if (ch == '\r') {
+                add(begin, i, skipEmpty);
+                if (i + 1 < to && cs.charAt(i + 1) == '\n') {
+                    ++i;
+                }
+                begin = i + 1;
+            }
+        }
+        add(begin, to, skipEmpty);
+    }
+}
@@ -16,17 +16,49 @@
 
 package pw.phylame.commons.util;
 
+import lombok.Getter;
 import lombok.NonNull;
-import pw.phylame.commons.function.Provider;
+import lombok.val;
 import pw.phylame.commons.log.Log;
-import pw.phylame.commons.value.Lazy;
+import pw.phylame.commons.log.MessageTemplate;
 
-import java.text.MessageFormat;
+import java.io.File;
+import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Translator with messages from resource bundle.
+ * <p>
+ * Messages are indexed once when bundle loaded, formatted messages are compiled once per key.
+ * If reload interval is set, bundle files in file system are checked when accessing
+ * and the bundle is reloaded after changed.
+ */
 public final class Linguist {
+    private static final String TAG = "Linguist";
+
+    /**
+     * Loads bundles bypassing the JDK cache, loaded messages are kept in {@link Catalog}.
+     */
+    private static final ResourceBundle.Control CONTROL = new ResourceBundle.Control() {
+        @Override
+        public long getTimeToLive(String baseName, Locale locale) {
+            return TTL_DONT_CACHE;
+        }
+    };
+
     private final String path;
     private final Locale locale;
+    private final ClassLoader loader;
+
+    /**
+     * Interval in milliseconds for checking changes of bundle files, {@literal 0} for never.
+     */
+    @Getter
+    private volatile long reloadInterval;
+
+    private volatile Catalog catalog;
 
     public Linguist(String path) {
         this(path, null);
@@ -35,45 +67,169 @@ public final class Linguist {
     public Linguist(@NonNull String path, Locale locale) {
         this.path = path;
         this.locale = locale;
+        val loader = Linguist.class.getClassLoader();
+        this.loader = loader != null ? loader : ClassLoader.getSystemClassLoader();
     }
 
-    private final Lazy<ResourceBundle> bundle = new Lazy<>(new Provider<ResourceBundle>() {
-        @Override
-        public ResourceBundle provide() throws Exception {
-            try {
-                return locale != null ? ResourceBundle.getBundle(path, locale) : ResourceBundle.getBundle(path);
-            } catch (MissingResourceException e) {
-                Log.d("Linguist", "not found resource for %s", path);
-                return EmptyBundle.EMPTY_BUNDLE;
-            }
+    public void setReloadInterval(long reloadInterval) {
+        Validate.require(reloadInterval >= 0, "reloadInterval < 0");
+        this.reloadInterval = reloadInterval;
+        val c = catalog;
+        if (c != null) {
+            c.nextCheck = System.currentTimeMillis() + reloadInterval;
         }
-    });
+    }
 
     public ResourceBundle getBundle() {
-        return bundle.get();
+        return catalog().bundle;
+    }
+
+    /**
+     * Drops loaded messages, next access loads the bundle again.
+     */
+    public synchronized void reload() {
+        catalog = null;
     }
 
     public String tr(@NonNull String key) {
-        return getBundle().getString(key);
+        val c = catalog();
+        val text = c.strings.get(key);
+        return text != null ? text : c.bundle.getString(key);
     }
 
     public String optTr(@NonNull String key, String fallback) {
-        try {
-            return getBundle().getString(key);
-        } catch (MissingResourceException e) {
-            return fallback;
-        }
+        val text = catalog().strings.get(key);
+        return text != null ? text : fallback;
     }
 
     public String tr(@NonNull String key, Object... args) {
-        return MessageFormat.format(getBundle().getString(key), args);
+        val template = catalog().templateOf(key);
+        if (template == null) {
+            throw new MissingResourceException("Can't find resource for bundle " + path + ", key " + key,
+                    path, key);
+        }
+        return template.format(args);
     }
 
     public String optTr(@NonNull String key, String fallback, Object... args) {
+        val template = catalog().templateOf(key);
+        if (template != null) {
+            return template.format(args);
+        }
+        return fallback != null ? MessageTemplate.format(fallback, args) : null;
+    }
+
+    private Catalog catalog() {
+        Catalog c = catalog;
+        if (c == null) {
+            synchronized (this) {
+                c = catalog;
+                if (c == null) {
+                    catalog = c = load();
+                }
+            }
+        } else if (reloadInterval > 0 && c.isChanged(reloadInterval)) {
+            synchronized (this) {
+                if (catalog == c) {
+                    Log.d(TAG, "reload resource for {0}", path);
+                    catalog = load();
+                }
+                c = catalog;
+            }
+        }
+        return c;
+    }
+
+    private Catalog load() {
+        val locale = this.locale != null ? this.locale : Locale.getDefault();
+        ResourceBundle bundle;
         try {
-            return MessageFormat.format(getBundle().getString(key), args);
+            bundle = ResourceBundle.getBundle(path, locale, loader, CONTROL);
         } catch (MissingResourceException e) {
-            return MessageFormat.format(fallback, args);
+            Log.d(TAG, "not found resource for {0}", path);
+            bundle = EmptyBundle.EMPTY_BUNDLE;
+        }
+        return new Catalog(bundle, bundleFiles(locale), reloadInterval);
+    }
+
+    private List<File> bundleFiles(Locale locale) {
+        val files = new ArrayList<File>();
+        for (val candidate : CONTROL.getCandidateLocales(path, locale)) {
+            val name = CONTROL.toResourceName(CONTROL.toBundleName(path, candidate), "properties");
+            val url = loader.getResource(name);
+            if (url != null && "file".equals(url.getProtocol())) {
+                try {
+                    files.add(new File(url.toURI()));
+                } catch (URISyntaxException | IllegalArgumentException e) {
+                    Log.d(TAG, e);
+                }
+            }
+        }
+        return files;
+    }
+
+    private static final class Catalog {
+        private final ResourceBundle bundle;
+
+        /**
+         * Index of string messages including parent bundles.
+         */
+        private final Map<String, String> strings;
+
+        private final ConcurrentMap<String, MessageTemplate> templates = new ConcurrentHashMap<>();
+
+        private final File[] files;
+
+        private final long[] stamps;
+
+        private volatile long nextCheck;
+
+        Catalog(ResourceBundle bundle, List<File> files, long interval) {
+            this.bundle = bundle;
+            val keys = bundle.keySet();
+            strings = new HashMap<>(keys.size() * 4 / 3 + 1);
+            for (val key : keys) {
+                val value = bundle.getObject(key);
+                if (value instanceof String) {
+                    strings.put(key, (String) value);
+                }
+            }
+            this.files = files.toArray(new File[files.size()]);
+            stamps = new long[this.files.length];
+            for (int i = 0; i < stamps.length; ++i) {
+                stamps[i] = this.files[i].lastModified();
+            }
+            nextCheck = System.currentTimeMillis() + interval;
+        }
+
+        MessageTemplate templateOf(String key) {
+            MessageTemplate template = templates.get(key);
+            if (template == null) {
+                val text = strings.get(key);
+                if (text == null) {
+                    return null;
+                }
+                template = MessageTemplate.of(text);
+                val prev = templates.putIfAbsent(key, template);
+                if (prev != null) {
+                    template = prev;
+                }
+            }
+            return template;
+        }
+
+        boolean isChanged(long interval) {
+            val now = System.currentTimeMillis();
+            if (now < nextCheck) {
+                return false;
+            }
+            nextCheck = now + interval;
+            for (int i = 0; i < files.length; ++i) {
+                if (files[i].lastModified() != stamps[i]) {
+                    return true;
+                }
+            }
+            return false;
         }
     }
 
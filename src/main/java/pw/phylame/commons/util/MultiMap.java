@@ -19,7 +19,9 @@ package pw.phylame.commons.util;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import lombok.val;
+import pw.phylame.commons.function.Provider;
 
+import java.lang.reflect.Constructor;
 import java.util.*;
 
 public class MultiMap<K, V> implements Map<K, Collection<V>> {
@@ -30,24 +32,26 @@ public class MultiMap<K, V> implements Map<K, Collection<V>> {
     private final Map<K, Collection<V>> map;
 
     /**
-     * Type of the collection.
+     * Provider of the collection for each key.
      */
     @NonNull
-    private final Class<?> type;
+    private final Provider<? extends Collection<V>> factory;
 
     public MultiMap() {
-        map = new HashMap<>();
-        type = ArrayList.class;
+        this(new HashMap<K, Collection<V>>());
     }
 
     public MultiMap(Map<K, Collection<V>> m) {
-        this.map = m;
-        type = ArrayList.class;
+        this(m, MultiMap.<V>factoryOf(ArrayList.class));
     }
 
     public MultiMap(Map<K, Collection<V>> m, Class<?> type) {
+        this(m, MultiMap.<V>factoryOf(type));
+    }
+
+    public MultiMap(@NonNull Map<K, Collection<V>> m, @NonNull Provider<? extends Collection<V>> factory) {
         this.map = m;
-        this.type = type;
+        this.factory = factory;
     }
 
     @Override
@@ -94,34 +98,33 @@ public class MultiMap<K, V> implements Map<K, Collection<V>> {
         return map.put(key, values);
     }
 
-    @SuppressWarnings("unchecked")
-    @SneakyThrows({InstantiationException.class, IllegalAccessException.class})
+    @SneakyThrows(Exception.class)
+    private Collection<V> newCollection() {
+        return factory.provide();
+    }
+
     public Collection<V> putOne(K key, V value) {
-        final Collection<V> prev = map.get(key), c = (Collection<V>) type.newInstance();
+        final Collection<V> prev = map.get(key), c = newCollection();
         c.add(value);
         map.put(key, c);
         return prev;
     }
 
-    @SuppressWarnings("unchecked")
-    @SneakyThrows({InstantiationException.class, IllegalAccessException.class})
     public void add(K key, Collection<V> values) {
         if (CollectionUtils.isEmpty(values)) {
             return;
         }
         Collection<V> c = map.get(key);
         if (c == null) {
-            map.put(key, c = (Collection<V>) type.newInstance());
+            map.put(key, c = newCollection());
         }
         c.addAll(values);
     }
 
-    @SuppressWarnings("unchecked")
-    @SneakyThrows({InstantiationException.class, IllegalAccessException.class})
     public void addOne(K key, V value) {
         Collection<V> c = map.get(key);
         if (c == null) {
-            map.put(key, c = (Collection<V>) type.newInstance());
+            map.put(key, c = newCollection());
         }
         c.add(value);
     }
@@ -171,13 +174,13 @@ public class MultiMap<K, V> implements Map<K, Collection<V>> {
 
         MultiMap<?, ?> multiMap = (MultiMap<?, ?>) o;
 
-        return map.equals(multiMap.map) && type.equals(multiMap.type);
+        return map.equals(multiMap.map) && factory.equals(multiMap.factory);
     }
 
     @Override
     public int hashCode() {
         int result = map.hashCode();
-        result = 31 * result + type.hashCode();
+        result = 31 * result + factory.hashCode();
         return result;
     }
 
@@ -185,4 +188,87 @@ public class MultiMap<K, V> implements Map<K, Collection<V>> {
     public String toString() {
         return map.toString();
     }
+
+    /**
+     * Factories of standard collections, which are created without reflection.
+     */
+    private static final Map<Class<?>, Provider<?>> factories = new HashMap<>();
+
+    static {
+        factories.put(ArrayList.class, new Provider<Collection<?>>() {
+            @Override
+            public Collection<?> provide() {
+                return new ArrayList<>();
+            }
+        });
+        factories.put(LinkedList.class, new Provider<Collection<?>>() {
+            @Override
+            public Collection<?> provide() {
+                return new LinkedList<>();
+            }
+        });
+        factories.put(HashSet.class, new Provider<Collection<?>>() {
+            @Override
+            public Collection<?> provide() {
+                return new HashSet<>();
+            }
+        });
+        factories.put(LinkedHashSet.class, new Provider<Collection<?>>() {
+            @Override
+            public Collection<?> provide() {
+                return new LinkedHashSet<>();
+            }
+        });
+        factories.put(TreeSet.class, new Provider<Collection<?>>() {
+            @Override
+            public Collection<?> provide() {
+                return new TreeSet<>();
+            }
+        });
+        factories.put(ArrayDeque.class, new Provider<Collection<?>>() {
+            @Override
+            public Collection<?> provide() {
+                return new ArrayDeque<>();
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Provider<Collection<V>> factoryOf(Class<?> type) {
+        val factory = factories.get(type);
+        return factory != null ? (Provider<Collection<V>>) factory : new TypeFactory<V>(type);
+    }
+
+    /**
+     * Creates collections by the no-arg constructor of the type, which is looked up once.
+     */
+    private static class TypeFactory<V> implements Provider<Collection<V>> {
+        private final Class<?> type;
+
+        private final Constructor<?> constructor;
+
+        @SneakyThrows(NoSuchMethodException.class)
+        TypeFactory(@NonNull Class<?> type) {
+            Validate.require(Collection.class.isAssignableFrom(type), "%s is not collection", type);
+            this.type = type;
+            constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Collection<V> provide() throws Exception {
+            return (Collection<V>) constructor.newInstance();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof TypeFactory && type.equals(((TypeFactory<?>) o).type);
+        }
+
+        @Override
+        public int hashCode() {
+            return type.hashCode();
+        }
+    }
 }
@@ -22,9 +22,17 @@ import lombok.SneakyThrows;
 import lombok.val;
 import pw.phylame.commons.function.Prediction;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static java.lang.Character.isLowerCase;
 import static java.lang.Character.isUpperCase;
@@ -93,17 +101,13 @@ public final class Reflections {
         return (Class<?>) types[index];
     }
 
+    /**
+     * Returns field with specified name, declared by the class or its super classes.
+     * <p>
+     * The returned field is a copy, changing its accessible flag does not affect others.
+     */
     public static Field getField(@NonNull Class<?> clazz, String name) {
-        if (isEmpty(name)) {
-            return null;
-        }
-        for (; clazz != null; clazz = clazz.getSuperclass()) {
-            try {
-                return clazz.getDeclaredField(name);
-            } catch (NoSuchFieldException | SecurityException ignored) {
-            }
-        }
-        return null;
+        return copyOf(lookupField(clazz, name));
     }
 
     public static List<Field> getFields(@NonNull Class<?> clazz, Prediction<? super Field> prediction) {
@@ -120,7 +124,7 @@ public final class Reflections {
 
     @SneakyThrows(IllegalAccessException.class)
     public static Object getFieldValue(@NonNull Class<?> clazz, String name) {
-        val field = getField(clazz, name);
+        val field = lookupField(clazz, name);
         if (field == null) {
             throw new RuntimeException("no such field: " + name);
         }
@@ -130,7 +134,7 @@ public final class Reflections {
 
     @SneakyThrows(IllegalAccessException.class)
     public static Object getFieldValue(@NonNull Object target, String name) {
-        val field = getField(target.getClass(), name);
+        val field = lookupField(target.getClass(), name);
         if (field == null) {
             throw new RuntimeException("no such field: " + name);
         }
@@ -140,7 +144,7 @@ public final class Reflections {
 
     @SneakyThrows(IllegalAccessException.class)
     public static void setFieldValue(@NonNull Class<?> clazz, String name, Object value) {
-        val field = getField(clazz, name);
+        val field = lookupField(clazz, name);
         if (field == null) {
             throw new RuntimeException("no such field: " + name);
         }
@@ -150,7 +154,7 @@ public final class Reflections {
 
     @SneakyThrows(IllegalAccessException.class)
     public static void setFieldValue(@NonNull Object target, String name, Object value) {
-        val field = getField(target.getClass(), name);
+        val field = lookupField(target.getClass(), name);
         if (field == null) {
             throw new RuntimeException("no such field: " + name);
         }
@@ -158,26 +162,14 @@ public final class Reflections {
         field.set(target, value);
     }
 
+    /**
+     * Returns method with specified name and parameter types, declared by the class, its super classes
+     * or its interfaces.
+     * <p>
+     * The returned method is a copy, changing its accessible flag does not affect others.
+     */
     public static Method getMethod(@NonNull Class<?> clazz, String name, Class<?>... types) {
-        if (isEmpty(name)) {
-            return null;
-        }
-        Class<?> copy = clazz;
-        for (; clazz != null; clazz = clazz.getSuperclass()) {
-            try {
-                return clazz.getDeclaredMethod(name, types);
-            } catch (NoSuchMethodException | SecurityException ignored) {
-            }
-        }
-        if (Versions.jvmVersion >= 8) { // for Java 8 default methods
-            for (val iface : copy.getInterfaces()) {
-                try {
-                    return iface.getMethod(name, types);
-                } catch (NoSuchMethodException | SecurityException ignored) {
-                }
-            }
-        }
-        return null;
+        return copyOf(lookupMethod(clazz, name, types));
     }
 
     public static List<Method> getMethods(@NonNull Class<?> clazz, Prediction<? super Method> prediction) {
@@ -203,22 +195,11 @@ public final class Reflections {
     }
 
     public static Method getGetter(@NonNull Class<?> clazz, String name) {
-        if (isEmpty(name)) {
-            return null;
-        }
-        name = normalized(name);
-        val method = getMethod(clazz, "get" + name);
-        if (method != null) {
-            return method;
-        } else {
-            return getMethod(clazz, "is" + name);
-        }
+        return copyOf(lookupGetter(clazz, name));
     }
 
     public static Method getGetter(@NonNull Class<?> clazz, String name, @NonNull Class<?> type) {
-        return isEmpty(name)
-                ? null
-                : getMethod(clazz, (type == boolean.class ? "is" : "get") + normalized(name));
+        return copyOf(lookupGetter(clazz, name, type));
     }
 
     public static Method getSetter(@NonNull Class<?> clazz, String name) {
@@ -227,19 +208,16 @@ public final class Reflections {
         }
         name = "set" + normalized(name);
         for (; clazz != null; clazz = clazz.getSuperclass()) {
-            for (val method : clazz.getDeclaredMethods()) {
-                if (name.equals(method.getName()) && method.getParameterTypes().length == 1) {
-                    return method;
-                }
+            val methods = members.get(clazz).methodsOf(name, 1);
+            if (methods != null) {
+                return copyOf(methods[0]);
             }
         }
         return null;
     }
 
     public static Method getSetter(@NonNull Class<?> clazz, String name, @NonNull Class<?> type) {
-        return isEmpty(name)
-                ? null
-                : getMethod(clazz, "set" + normalized(name), type);
+        return copyOf(lookupSetter(clazz, name, type));
     }
 
     @SneakyThrows(IllegalAccessException.class)
@@ -252,42 +230,135 @@ public final class Reflections {
         }
     }
 
+    /**
+     * Type of compiled getter: (Object)Object.
+     */
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /**
+     * Type of compiled setter: (Object, Object)void.
+     */
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**
+     * Placeholder for missing accessor.
+     */
+    private static final MethodHandle NO_ACCESSOR = MethodHandles.constant(Object.class, null);
+
+    private static MethodHandle getterFor(Class<?> clazz, String name, Class<?> type) {
+        if (isEmpty(name)) {
+            return null;
+        }
+        val m = members.get(clazz);
+        MethodHandle handle;
+        if (type == null) {
+            handle = m.getters.get(name);
+            if (handle == null) {
+                handle = compile(lookupGetter(clazz, name), GETTER_TYPE);
+                m.getters.putIfAbsent(name, handle);
+            }
+        } else {
+            val handles = handlesOf(m.typedGetters, name);
+            handle = handles.get(type);
+            if (handle == null) {
+                handle = compile(lookupGetter(clazz, name, type), GETTER_TYPE);
+                handles.putIfAbsent(type, handle);
+            }
+        }
+        return handle != NO_ACCESSOR ? handle : null;
+    }
+
+    private static MethodHandle setterFor(Class<?> clazz, String name, Class<?> type) {
+        if (isEmpty(name)) {
+            return null;
+        }
+        val handles = handlesOf(members.get(clazz).setters, name);
+        MethodHandle handle = handles.get(type);
+        if (handle == null) {
+            handle = compile(lookupSetter(clazz, name, type), SETTER_TYPE);
+            handles.putIfAbsent(type, handle);
+        }
+        return handle != NO_ACCESSOR ? handle : null;
+    }
+
+    private static ConcurrentMap<Class<?>, MethodHandle> handlesOf(ConcurrentMap<String, ConcurrentMap<Class<?>, MethodHandle>> cache,
+                                                                  String name) {
+        ConcurrentMap<Class<?>, MethodHandle> handles = cache.get(name);
+        if (handles == null) {
+            handles = new ConcurrentHashMap<>(4);
+            val prev = cache.putIfAbsent(name, handles);
+            if (prev != null) {
+                handles = prev;
+            }
+        }
+        return handles;
+    }
+
+    @SneakyThrows(IllegalAccessException.class)
+    private static MethodHandle compile(Method method, MethodType type) {
+        if (method == null) {
+            return NO_ACCESSOR;
+        }
+        makeAccessible(method);
+        MethodHandle handle = MethodHandles.lookup().unreflect(method);
+        if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        return handle.asType(type);
+    }
+
     public static Object getProperty(@NonNull Object target, String name) {
-        val getter = getGetter(target.getClass(), name);
+        val getter = getterFor(target.getClass(), name, null);
         if (getter == null) {
             throw new RuntimeException("no such getter for : " + name);
         }
-        return invokeMethod(getter, target);
+        try {
+            return (Object) getter.invokeExact(target);
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
     }
 
     @SuppressWarnings("unchecked")
     public static <T> T getProperty(@NonNull Object target, String name, @NonNull Class<? extends T> type) {
-        val getter = getGetter(target.getClass(), name, type);
+        val getter = getterFor(target.getClass(), name, type);
         if (getter == null) {
             throw new RuntimeException("no such getter for : " + name);
         }
-        return (T) invokeMethod(getter, target);
+        try {
+            return (T) (Object) getter.invokeExact(target);
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
     }
 
     public static void setProperty(@NonNull Object target, String name, Object value) {
-        val setter = getSetter(target.getClass(), name, value.getClass());
+        val setter = setterFor(target.getClass(), name, value.getClass());
         if (setter == null) {
             throw new RuntimeException("no such setter for : " + name);
         }
-        invokeMethod(setter, target, value);
+        try {
+            setter.invokeExact(target, value);
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
     }
 
     public static <T> void setProperty(@NonNull Object target, String name, @NonNull Class<? super T> type, T value) {
-        val setter = getSetter(target.getClass(), name, type);
+        val setter = setterFor(target.getClass(), name, type);
         if (setter == null) {
             throw new RuntimeException("no such setter for : " + name);
         }
-        invokeMethod(setter, target, value);
+        try {
+            setter.invokeExact(target, (Object) value);
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
     }
 
     public static Object i(Object target, String name, Object... args) {
         Class<?>[] types = typesOf(args);
-        val method = getMethod(target.getClass(), name, types);
+        val method = lookupMethod(target.getClass(), name, types);
         if (method == null) {
             throw new RuntimeException("no such method: " + name);
         }
@@ -301,7 +372,7 @@ public final class Reflections {
 
     public static Object i(Class<?> target, String name, Object... args) {
         Class<?>[] types = typesOf(args);
-        val method = getMethod(target, name, types);
+        val method = lookupMethod(target, name, types);
         if (method == null) {
             throw new RuntimeException("no such method: " + name);
         }
@@ -325,6 +396,228 @@ public final class Reflections {
         setProperty(target, name, type, value);
     }
 
+    private static final Class<?>[] NO_TYPES = new Class<?>[0];
+
+    /**
+     * Declared members of each class, computed once by {@code ClassValue} and released
+     * with the class.
+     * <p>
+     * Cached members are shared by internal accessors and never returned to callers,
+     * public lookups return copies like {@link Class#getDeclaredField(String)} does.
+     */
+    private static final ClassValue<ClassMembers> members = new ClassValue<ClassMembers>() {
+        @Override
+        protected ClassMembers computeValue(Class<?> type) {
+            return new ClassMembers(type);
+        }
+    };
+
+    private static Field lookupField(Class<?> clazz, String name) {
+        if (isEmpty(name)) {
+            return null;
+        }
+        for (; clazz != null; clazz = clazz.getSuperclass()) {
+            val field = members.get(clazz).fieldsByName.get(name);
+            if (field != null) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private static Method lookupMethod(Class<?> clazz, String name, Class<?>... types) {
+        if (isEmpty(name)) {
+            return null;
+        }
+        if (types == null) {
+            types = NO_TYPES;
+        }
+        Class<?> copy = clazz;
+        for (; clazz != null; clazz = clazz.getSuperclass()) {
+            val method = findMethod(members.get(clazz).methodsOf(name, types.length), types);
+            if (method != null) {
+                return method;
+            }
+        }
+        if (Versions.jvmVersion >= 8) { // for Java 8 default methods
+            for (val iface : copy.getInterfaces()) {
+                val method = findMethod(members.get(iface).publicMethodsOf(name, types.length), types);
+                if (method != null) {
+                    return method;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Method lookupGetter(Class<?> clazz, String name) {
+        if (isEmpty(name)) {
+            return null;
+        }
+        name = normalized(name);
+        val method = lookupMethod(clazz, "get" + name);
+        return method != null ? method : lookupMethod(clazz, "is" + name);
+    }
+
+    private static Method lookupGetter(Class<?> clazz, String name, Class<?> type) {
+        return isEmpty(name)
+                ? null
+                : lookupMethod(clazz, (type == boolean.class ? "is" : "get") + normalized(name));
+    }
+
+    private static Method lookupSetter(Class<?> clazz, String name, Class<?> type) {
+        return isEmpty(name)
+                ? null
+                : lookupMethod(clazz, "set" + normalized(name), type);
+    }
+
+    @SneakyThrows(NoSuchFieldException.class)
+    private static Field copyOf(Field field) {
+        return field != null ? field.getDeclaringClass().getDeclaredField(field.getName()) : null;
+    }
+
+    @SneakyThrows(NoSuchMethodException.class)
+    private static Method copyOf(Method method) {
+        if (method == null) {
+            return null;
+        }
+        val owner = method.getDeclaringClass();
+        if (!method.isBridge()) { // the most specific one is returned by JDK
+            return owner.getDeclaredMethod(method.getName(), method.getParameterTypes());
+        }
+        for (val m : owner.getDeclaredMethods()) {
+            if (m.equals(method)) {
+                return m;
+            }
+        }
+        throw new NoSuchMethodException(method.toString());
+    }
+
+    /**
+     * Finds method with specified parameter types, for methods with same signature (bridge
+     * methods), the one with most specific return type is returned like
+     * {@link Class#getDeclaredMethod(String, Class[])}.
+     */
+    private static Method findMethod(Method[] methods, Class<?>[] types) {
+        if (methods == null) {
+            return null;
+        }
+        Method found = null;
+        for (val method : methods) {
+            if (Arrays.equals(method.getParameterTypes(), types)
+                    && (found == null || found.getReturnType().isAssignableFrom(method.getReturnType()))) {
+                found = method;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Indexes methods by name then by parameter count.
+     */
+    private static Map<String, Method[][]> indexMethods(Method[] methods) {
+        val lists = new HashMap<String, List<Method>>();
+        for (val method : methods) {
+            List<Method> list = lists.get(method.getName());
+            if (list == null) {
+                lists.put(method.getName(), list = new ArrayList<>(1));
+            }
+            list.add(method);
+        }
+        val index = new HashMap<String, Method[][]>(lists.size() * 4 / 3 + 1);
+        for (val e : lists.entrySet()) {
+            val list = e.getValue();
+            int maxArity = 0;
+            for (val method : list) {
+                maxArity = Math.max(maxArity, method.getParameterTypes().length);
+            }
+            val counts = new int[maxArity + 1];
+            for (val method : list) {
+                ++counts[method.getParameterTypes().length];
+            }
+            val byArity = new Method[maxArity + 1][];
+            for (val method : list) {
+                val arity = method.getParameterTypes().length;
+                Method[] slot = byArity[arity];
+                if (slot == null) {
+                    byArity[arity] = slot = new Method[counts[arity]];
+                }
+                slot[slot.length - counts[arity]--] = method;
+            }
+            index.put(e.getKey(), byArity);
+        }
+        return index;
+    }
+
+    private static Method[] methodsOf(Map<String, Method[][]> index, String name, int arity) {
+        val byArity = index.get(name);
+        return byArity != null && arity < byArity.length ? byArity[arity] : null;
+    }
+
+    private static class ClassMembers {
+        private final Class<?> type;
+
+        private final Map<String, Field> fieldsByName;
+
+        private final Map<String, Method[][]> methodsByName;
+
+        private volatile Map<String, Method[][]> publicMethodsByName;
+
+        /**
+         * Compiled untyped getters of the class, keyed by property name.
+         */
+        private final ConcurrentMap<String, MethodHandle> getters = new ConcurrentHashMap<>();
+
+        /**
+         * Compiled typed getters of the class, keyed by property name then property type.
+         */
+        private final ConcurrentMap<String, ConcurrentMap<Class<?>, MethodHandle>> typedGetters = new ConcurrentHashMap<>();
+
+        /**
+         * Compiled setters of the class, keyed by property name then parameter type.
+         */
+        private final ConcurrentMap<String, ConcurrentMap<Class<?>, MethodHandle>> setters = new ConcurrentHashMap<>();
+
+        private ClassMembers(Class<?> type) {
+            this.type = type;
+            Field[] fields;
+            Method[] methods;
+            try {
+                fields = type.getDeclaredFields();
+                methods = type.getDeclaredMethods();
+            } catch (SecurityException e) {
+                fields = new Field[0];
+                methods = new Method[0];
+            }
+            fieldsByName = new HashMap<>(fields.length * 4 / 3 + 1);
+            for (val field : fields) {
+                fieldsByName.put(field.getName(), field);
+            }
+            methodsByName = indexMethods(methods);
+        }
+
+        /**
+         * Returns declared methods with specified name and parameter count, {@code null} if not found.
+         */
+        private Method[] methodsOf(String name, int arity) {
+            return Reflections.methodsOf(methodsByName, name, arity);
+        }
+
+        private Method[] publicMethodsOf(String name, int arity) {
+            Map<String, Method[][]> index = publicMethodsByName;
+            if (index == null) {
+                Method[] methods;
+                try {
+                    methods = type.getMethods();
+                } catch (SecurityException e) {
+                    methods = new Method[0];
+                }
+                publicMethodsByName = index = indexMethods(methods);
+            }
+            return Reflections.methodsOf(index, name, arity);
+        }
+    }
+
     private static Class<?>[] typesOf(Object[] args) {
         Class<?>[] types = null;
         if (args.length > 0) {
@@ -370,7 +663,7 @@ public final class Reflections {
             if (types == null && arguments != null && arguments.length > 0) {
                 types = typesOf(arguments);
             }
-            val method = getMethod(target instanceof Class ? (Class<?>) target : target.getClass(), name, types);
+            val method = lookupMethod(target instanceof Class ? (Class<?>) target : target.getClass(), name, types);
             if (method == null) {
                 throw new NoSuchMethodException(name);
             }
@@ -20,8 +20,10 @@ import lombok.Builder;
 import lombok.NonNull;
 import lombok.val;
 import pw.phylame.commons.format.Render;
+import pw.phylame.commons.function.BiConsumer;
 import pw.phylame.commons.value.Pair;
 
+import java.io.IOException;
 import java.util.*;
 
 public final class StringUtils {
@@ -44,19 +46,51 @@ public final class StringUtils {
     }
 
     public static boolean isBlank(CharSequence cs) {
-        if (isEmpty(cs)) {
-            return true;
+        return isEmpty(cs) || isBlank(cs, 0, cs.length());
+    }
+
+    /**
+     * Tests if specified area of the string contains only whitespaces.
+     *
+     * @param cs    the string
+     * @param start start index, inclusive
+     * @param end   end index, exclusive
+     * @return {@literal true} if the area is empty or blank
+     */
+    public static boolean isBlank(@NonNull CharSequence cs, int start, int end) {
+        if (cs instanceof String) { // monomorphic charAt
+            val str = (String) cs;
+            for (int i = start; i < end; ++i) {
+                if (!isSpace(str.charAt(i))) {
+                    return false;
+                }
+            }
+        } else {
+            for (int i = start; i < end; ++i) {
+                if (!isSpace(cs.charAt(i))) {
+                    return false;
+                }
+            }
         }
-        char ch;
-        for (int i = 0, end = cs.length(); i != end; ++i) {
-            ch = cs.charAt(i);
-            if (ch != CHINESE_SPACE && !Character.isWhitespace(ch)) {
+        return true;
+    }
+
+    public static boolean isBlank(@NonNull char[] chars, int start, int end) {
+        for (int i = start; i < end; ++i) {
+            if (!isSpace(chars[i])) {
                 return false;
             }
         }
         return true;
     }
 
+    private static boolean isSpace(char ch) {
+        if (ch > ' ' && ch < '\u007f') { // visible ASCII
+            return false;
+        }
+        return ch == CHINESE_SPACE || Character.isWhitespace(ch);
+    }
+
     public static boolean isNotBlank(CharSequence cs) {
         return !isBlank(cs);
     }
@@ -140,6 +174,16 @@ public final class StringUtils {
         int st = 0;
 
         char ch;
+        if (cs instanceof String) {
+            val str = (String) cs;
+            while ((st < len) && (((ch = str.charAt(st)) <= ' ') || (ch == CHINESE_SPACE))) {
+                st++;
+            }
+            while ((st < len) && (((ch = str.charAt(len - 1)) <= ' ') || (ch == CHINESE_SPACE))) {
+                len--;
+            }
+            return ((st > 0) || (len < str.length())) ? str.substring(st, len) : str;
+        }
         while ((st < len) && (((ch = cs.charAt(st)) <= ' ') || (ch == CHINESE_SPACE))) {
             st++;
         }
@@ -194,58 +238,109 @@ public final class StringUtils {
         if (items == null || items.length == 0) {
             return EMPTY_TEXT;
         }
-        return StringJoiner.<T>builder()
-                .iterator(Arrays.asList(items).iterator())
-                .separator(separator)
-                .transform(transform)
-                .build()
-                .join();
+        val parts = new String[items.length];
+        for (int i = 0; i < parts.length; ++i) {
+            parts[i] = renderOf(items[i], transform);
+        }
+        return joinParts(separator, parts, parts.length);
     }
 
     public static <T> String join(CharSequence separator, Iterable<T> i) {
-        if (i == null) {
-            return EMPTY_TEXT;
-        }
-        return StringJoiner.<T>builder()
-                .iterator(i.iterator())
-                .separator(separator)
-                .build()
-                .join();
+        return join(separator, i, null);
     }
 
+    /**
+     * Joins items of iterable, the output is presized exactly if the iterable is a collection.
+     */
     public static <T> String join(CharSequence separator, Iterable<T> i, Render<? super T> transform) {
         if (i == null) {
             return EMPTY_TEXT;
         }
-        return StringJoiner.<T>builder()
-                .iterator(i.iterator())
-                .separator(separator)
-                .transform(transform)
-                .build()
-                .join();
+        if (!(i instanceof Collection)) {
+            return join(separator, i.iterator(), transform);
+        }
+        val c = (Collection<T>) i;
+        if (c.isEmpty()) {
+            return EMPTY_TEXT;
+        }
+        val parts = new String[c.size()];
+        int count = 0;
+        for (val item : c) {
+            if (count == parts.length) { // grown concurrently
+                return join(separator, c.iterator(), transform);
+            }
+            parts[count++] = renderOf(item, transform);
+        }
+        return joinParts(separator, parts, count);
     }
 
     public static <T> String join(CharSequence separator, Iterator<T> i) {
-        if (i == null) {
-            return EMPTY_TEXT;
-        }
-        return StringJoiner.<T>builder()
-                .iterator(i)
-                .separator(separator)
-                .build()
-                .join();
+        return join(separator, i, null);
     }
 
     public static <T> String join(CharSequence separator, Iterator<T> i, Render<? super T> transform) {
         if (i == null) {
             return EMPTY_TEXT;
         }
-        return StringJoiner.<T>builder()
-                .iterator(i)
-                .separator(separator)
-                .transform(transform)
-                .build()
-                .join();
+        val b = new StringBuilder();
+        if (i.hasNext()) {
+            b.append(renderOf(i.next(), transform));
+            while (i.hasNext()) {
+                b.append(separator).append(renderOf(i.next(), transform));
+            }
+        }
+        return b.toString();
+    }
+
+    /**
+     * Writes items of iterator to the output, no intermediate string is created for the whole text.
+     *
+     * @param out       the output
+     * @param separator separator between items
+     * @param i         the items
+     * @param transform render of items, {@code null} for {@code toString}
+     * @return the output
+     * @throws IOException if occur IO errors
+     */
+    public static <T, A extends Appendable> A joinTo(@NonNull A out,
+                                                    @NonNull CharSequence separator,
+                                                    @NonNull Iterator<T> i,
+                                                    Render<? super T> transform) throws IOException {
+        if (i.hasNext()) {
+            out.append(renderOf(i.next(), transform));
+            while (i.hasNext()) {
+                out.append(separator).append(renderOf(i.next(), transform));
+            }
+        }
+        return out;
+    }
+
+    public static <T, A extends Appendable> A joinTo(@NonNull A out,
+                                                    @NonNull CharSequence separator,
+                                                    @NonNull Iterable<T> i,
+                                                    Render<? super T> transform) throws IOException {
+        return joinTo(out, separator, i.iterator(), transform);
+    }
+
+    private static <T> String renderOf(T item, Render<? super T> transform) {
+        return transform != null ? transform.render(item) : toString(item);
+    }
+
+    /**
+     * Joins parts into a builder of exact size.
+     */
+    private static String joinParts(CharSequence separator, String[] parts, int count) {
+        long length = (long) separator.length() * (count - 1);
+        for (int i = 0; i < count; ++i) {
+            length += parts[i] != null ? parts[i].length() : 4; // "null"
+        }
+        Validate.require(length <= Integer.MAX_VALUE, "joined text too long: %d", length);
+        val b = new StringBuilder((int) length);
+        b.append(parts[0]);
+        for (int i = 1; i < count; ++i) {
+            b.append(separator).append(parts[i]);
+        }
+        return b.toString();
     }
 
     public static String multiplyOf(CharSequence cs, int count) {
@@ -255,11 +350,17 @@ public final class StringUtils {
             return cs.toString();
         }
         val str = String.valueOf(cs);
-        val b = new StringBuilder();
-        for (int i = 0; i != count; i++) {
-            b.append(str);
+        val length = (long) str.length() * count;
+        Validate.require(length <= Integer.MAX_VALUE, "multiplied text too long: %d", length);
+        if (length == 0) {
+            return EMPTY_TEXT;
         }
-        return b.toString();
+        val chars = new char[(int) length];
+        str.getChars(0, str.length(), chars, 0);
+        for (int n = str.length(); n < chars.length; n <<= 1) { // double the filled part
+            System.arraycopy(chars, 0, chars, n, Math.min(n, chars.length - n));
+        }
+        return new String(chars);
     }
 
     /**
@@ -271,42 +372,32 @@ public final class StringUtils {
      * @throws NullPointerException if the {@code cs} is {@code null}
      */
     public static List<String> splitLines(@NonNull CharSequence cs, boolean skipEmpty) {
-        val lines = new LinkedList<String>();
-        splitLines(cs, lines, skipEmpty);
+        val view = LineView.of(cs, skipEmpty);
+        val lines = new ArrayList<String>(view.size());
+        addLines(view, lines);
         return lines;
     }
 
     public static void splitLines(@NonNull CharSequence cs, List<String> lines, boolean skipEmpty) {
-        int i, begin = 0;
-        val end = cs.length();
-        CharSequence sub;
-        for (i = 0; i < end; ) {
-            val ch = cs.charAt(i);
-            if ('\n' == ch) { // \n
-                sub = cs.subSequence(begin, i);
-                if (sub.length() > 0 || !skipEmpty) {
-                    lines.add(sub.toString());
-                }
-                begin = ++i;
-            } else if ('\r' == ch) {
-                sub = cs.subSequence(begin, i);
-                if (sub.length() > 0 || !skipEmpty) {
-                    lines.add(sub.toString());
-                }
-                if (i + 1 < end && '\n' == cs.charAt(i + 1)) { // \r\n
-                    begin = i += 2;
-                } else { // \r
-                    begin = ++i;
-                }
-            } else {
-                ++i;
-            }
-        }
-        if (i >= begin) {
-            sub = cs.subSequence(begin, cs.length());
-            if (sub.length() > 0 || !skipEmpty) {
-                lines.add(sub.toString());
-            }
+        addLines(LineView.of(cs, skipEmpty), lines);
+    }
+
+    /**
+     * Returns offsets of lines in specified string without copying the lines.
+     *
+     * @param cs        the input string
+     * @param skipEmpty {@literal true} to skip empty line
+     * @return the view of lines
+     */
+    public static LineView lineViewOf(@NonNull CharSequence cs, boolean skipEmpty) {
+        return LineView.of(cs, skipEmpty);
+    }
+
+    private static void addLines(LineView view, List<String> lines) {
+        val source = view.getSource();
+        val str = source instanceof String ? (String) source : source.toString(); // copy once for builders
+        for (int i = 0, end = view.size(); i < end; ++i) {
+            lines.add(str.substring(view.start(i), view.end(i)));
         }
     }
 
@@ -337,18 +428,145 @@ public final class StringUtils {
                                                            @NonNull String partSeparator,
                                                            @NonNull String valueSeparator) {
         val pairs = new ArrayList<Pair<String, String>>();
-        int index;
-        for (val part : str.split(partSeparator)) {
-            index = part.indexOf(valueSeparator);
-            if (index != -1) {
-                pairs.add(pairOf(part.substring(0, index), part.substring(index + valueSeparator.length())));
-            } else {
-                pairs.add(pairOf(part, EMPTY_TEXT));
+        walkNamedPairs(str, partSeparator, valueSeparator, new PairVisitor() {
+            @Override
+            public boolean visit(CharSequence cs, int nameStart, int nameEnd, int valueStart, int valueEnd) {
+                pairs.add(pairOf(trimmedOf(cs, nameStart, nameEnd), trimmedOf(cs, valueStart, valueEnd)));
+                return true;
             }
-        }
+        });
         return pairs;
     }
 
+    /**
+     * Calls the consumer with name and value of each pair in specified string.
+     */
+    public static void forEachNamedPair(@NonNull CharSequence cs,
+                                        @NonNull String partSeparator,
+                                        @NonNull String valueSeparator,
+                                        @NonNull final BiConsumer<String, String> consumer) {
+        walkNamedPairs(cs, partSeparator, valueSeparator, new PairVisitor() {
+            @Override
+            public boolean visit(CharSequence cs, int nameStart, int nameEnd, int valueStart, int valueEnd) {
+                consumer.consume(trimmedOf(cs, nameStart, nameEnd), trimmedOf(cs, valueStart, valueEnd));
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Visitor of named pairs, receives offsets of name and value in the source.
+     */
+    public interface PairVisitor {
+        /**
+         * Visits a pair, value is empty if the part has no value separator.
+         *
+         * @return {@literal false} to stop walking
+         */
+        boolean visit(CharSequence cs, int nameStart, int nameEnd, int valueStart, int valueEnd);
+    }
+
+    /**
+     * Walks named pairs like {@code a=1;b=2} in specified string without copying.
+     * <p>
+     * Separators are literals, empty parts are skipped. Offsets passed to the visitor include
+     * whitespaces around names and values, the pair helpers in this class ignore them.
+     *
+     * @param cs             the string
+     * @param partSeparator  separator between pairs
+     * @param valueSeparator separator between name and value
+     * @param visitor        the visitor
+     * @return {@literal false} if stopped by the visitor
+     */
+    public static boolean walkNamedPairs(@NonNull CharSequence cs,
+                                         @NonNull String partSeparator,
+                                         @NonNull String valueSeparator,
+                                         @NonNull PairVisitor visitor) {
+        Validate.requireNotEmpty(partSeparator, "partSeparator cannot be empty");
+        Validate.requireNotEmpty(valueSeparator, "valueSeparator cannot be empty");
+        val end = cs.length();
+        int start = 0;
+        while (start <= end) {
+            int partEnd = indexOf(cs, partSeparator, start, end);
+            if (partEnd < 0) {
+                partEnd = end;
+            }
+            if (partEnd > start) {
+                val index = indexOf(cs, valueSeparator, start, partEnd);
+                val result = index < 0
+                        ? visitor.visit(cs, start, partEnd, partEnd, partEnd)
+                        : visitor.visit(cs, start, index, index + valueSeparator.length(), partEnd);
+                if (!result) {
+                    return false;
+                }
+            }
+            start = partEnd + partSeparator.length();
+        }
+        return true;
+    }
+
+    /**
+     * Finds {@code s} in {@code cs} within {@code [from, to)}, never scans beyond {@code to}.
+     */
+    private static int indexOf(CharSequence cs, String s, int from, int to) {
+        val last = to - s.length();
+        val first = s.charAt(0);
+        outer:
+        for (int i = from; i <= last; ++i) {
+            if (cs.charAt(i) != first) {
+                continue;
+            }
+            for (int j = 1, n = s.length(); j < n; ++j) {
+                if (cs.charAt(i + j) != s.charAt(j)) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the area of {@code cs} with whitespaces around removed.
+     */
+    private static String trimmedOf(CharSequence cs, int start, int end) {
+        while (start < end && cs.charAt(start) <= ' ') {
+            ++start;
+        }
+        while (end > start && cs.charAt(end - 1) <= ' ') {
+            --end;
+        }
+        return cs.subSequence(start, end).toString();
+    }
+
+    /**
+     * Tests if the area of {@code cs} equals to {@code name}, whitespaces around the area are ignored.
+     */
+    private static boolean nameMatches(CharSequence cs, int start, int end, String name, boolean ignoreCase) {
+        while (start < end && cs.charAt(start) <= ' ') {
+            ++start;
+        }
+        while (end > start && cs.charAt(end - 1) <= ' ') {
+            --end;
+        }
+        val length = name.length();
+        if (end - start != length) {
+            return false;
+        }
+        if (cs instanceof String) {
+            return ((String) cs).regionMatches(ignoreCase, start, name, 0, length);
+        }
+        for (int i = 0; i < length; ++i) {
+            val a = cs.charAt(start + i);
+            val b = name.charAt(i);
+            if (a != b && !(ignoreCase && (Character.toUpperCase(a) == Character.toUpperCase(b)
+                    || Character.toLowerCase(a) == Character.toLowerCase(b)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static String valueOfName(String str, String name, String partSeparator) {
         return valueOfName(str, name, partSeparator, "=", true);
     }
@@ -357,21 +575,26 @@ public final class StringUtils {
         return valueOfName(str, name, partSeparator, "=", ignoreCase);
     }
 
+    /**
+     * Returns value of the first pair with specified name, or {@code null} if not found.
+     */
     public static String valueOfName(@NonNull String str,
-                                     @NonNull String name,
+                                     @NonNull final String name,
                                      @NonNull String partSeparator,
                                      @NonNull String valueSeparator,
-                                     boolean ignoreCase) {
-        for (val part : str.split(partSeparator)) {
-            val index = part.trim().indexOf(valueSeparator);
-            if (index != -1) {
-                val tag = part.substring(0, index);
-                if (ignoreCase && tag.equalsIgnoreCase(name) || tag.equals(name)) {
-                    return part.substring(index + 1);
+                                     final boolean ignoreCase) {
+        val result = new String[1];
+        walkNamedPairs(str, partSeparator, valueSeparator, new PairVisitor() {
+            @Override
+            public boolean visit(CharSequence cs, int nameStart, int nameEnd, int valueStart, int valueEnd) {
+                if (nameEnd != valueStart && nameMatches(cs, nameStart, nameEnd, name, ignoreCase)) {
+                    result[0] = trimmedOf(cs, valueStart, valueEnd);
+                    return false;
                 }
+                return true;
             }
-        }
-        return null;
+        });
+        return result[0];
     }
 
     public static String[] valuesOfName(String str, String name, String partSeparator) {
@@ -383,20 +606,20 @@ public final class StringUtils {
     }
 
     public static String[] valuesOfName(@NonNull String str,
-                                        @NonNull String name,
+                                        @NonNull final String name,
                                         @NonNull String partSeparator,
                                         @NonNull String valueSeparator,
-                                        boolean ignoreCase) {
-        val result = new ArrayList<String>();
-        for (val part : str.split(partSeparator)) {
-            val index = part.trim().indexOf(valueSeparator);
-            if (index != -1) {
-                val tag = part.substring(0, index);
-                if (ignoreCase && tag.equalsIgnoreCase(name) || tag.equals(name)) {
-                    result.add(part.substring(index + 1));
+                                        final boolean ignoreCase) {
+        val result = new ArrayList<String>(2);
+        walkNamedPairs(str, partSeparator, valueSeparator, new PairVisitor() {
+            @Override
+            public boolean visit(CharSequence cs, int nameStart, int nameEnd, int valueStart, int valueEnd) {
+                if (nameEnd != valueStart && nameMatches(cs, nameStart, nameEnd, name, ignoreCase)) {
+                    result.add(trimmedOf(cs, valueStart, valueEnd));
                 }
+                return true;
             }
-        }
+        });
         return result.toArray(new String[result.size()]);
     }
 
@@ -413,21 +636,35 @@ public final class StringUtils {
         private CharSequence prefix;
         private CharSequence suffix;
 
+        /**
+         * Expected length of the joined text, used for presizing the output.
+         */
+        private int capacity;
+
         public String join() {
-            val b = new StringBuilder();
-            if (isNotEmpty(prefix)) {
-                b.append(prefix);
+            val b = new StringBuilder(capacity > 0 ? capacity : 16);
+            try {
+                joinTo(b);
+            } catch (IOException e) {
+                throw new AssertionError(e); // never thrown by StringBuilder
             }
-            while (iterator.hasNext()) {
-                b.append(transform != null ? transform.render(iterator.next()) : StringUtils.toString(iterator.next()));
-                if (iterator.hasNext()) {
-                    b.append(separator);
-                }
+            return b.toString();
+        }
+
+        /**
+         * Writes the joined text to specified output.
+         *
+         * @param out the output
+         * @throws IOException if occur IO errors
+         */
+        public void joinTo(@NonNull Appendable out) throws IOException {
+            if (isNotEmpty(prefix)) {
+                out.append(prefix);
             }
+            StringUtils.joinTo(out, separator, iterator, transform);
             if (isNotEmpty(suffix)) {
-                b.append(suffix);
+                out.append(suffix);
             }
-            return b.toString();
         }
     }
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 Peng Wan <phylame@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pw.phylame.commons.value;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.val;
+import pw.phylame.commons.function.Provider;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lazy value initialized by an executor.
+ * <p>
+ * Initialization is started by {@link #start()}, {@link #future()} or {@link #get()},
+ * the provider is called once until {@link #reset()}. {@link #get()} waits for the value
+ * and returns the fallback if the provider failed.
+ */
+public class AsyncLazy<T> implements Value<T> {
+    private final Provider<? extends T> provider;
+
+    @Getter
+    private final T fallback;
+
+    private final Executor executor;
+
+    private final AtomicReference<FutureTask<T>> task = new AtomicReference<>();
+
+    public AsyncLazy(Provider<? extends T> provider, Executor executor) {
+        this(provider, null, executor);
+    }
+
+    /**
+     * Constructs lazy value initialized by specified executor.
+     *
+     * @param provider the provider of value
+     * @param fallback value used when provider fails
+     * @param executor the executor, {@code null} for running in the thread starting initialization
+     */
+    public AsyncLazy(@NonNull Provider<? extends T> provider, T fallback, Executor executor) {
+        this.provider = provider;
+        this.fallback = fallback;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts initialization if not started.
+     *
+     * @return the future of value
+     */
+    public Future<T> start() {
+        FutureTask<T> current;
+        while ((current = task.get()) == null) { // reset() may clear the task after a lost CAS
+            val created = new FutureTask<>(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    return provider.provide();
+                }
+            });
+            if (task.compareAndSet(null, created)) {
+                if (executor == null) {
+                    created.run();
+                } else {
+                    try {
+                        executor.execute(created);
+                    } catch (RejectedExecutionException e) {
+                        created.run();
+                    }
+                }
+                return created;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Returns future of the value, initialization is started if necessary.
+     */
+    public Future<T> future() {
+        return start();
+    }
+
+    public boolean isDone() {
+        val current = task.get();
+        return current != null && current.isDone();
+    }
+
+    @Override
+    public final T get() {
+        val future = start();
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fallback;
+        } catch (ExecutionException | CancellationException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * Returns error of provider, {@code null} if not done or succeeded.
+     */
+    public Exception getError() {
+        val current = task.get();
+        if (current == null || !current.isDone()) {
+            return null;
+        }
+        try {
+            current.get();
+            return null;
+        } catch (ExecutionException e) {
+            val cause = e.getCause();
+            return cause instanceof Exception ? (Exception) cause : e;
+        } catch (InterruptedException | CancellationException e) {
+            return e;
+        }
+    }
+
+    /**
+     * Drops the value, cancels running initialization.
+     */
+    public void reset() {
+        val current = task.getAndSet(null);
+        if (current != null) {
+            current.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 Peng Wan <phylame@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pw.phylame.commons.value;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.val;
+import pw.phylame.commons.function.Provider;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lazy value initialized without lock.
+ * <p>
+ * Concurrent first calls may all run the provider, the first published result is
+ * returned to all callers, so the provider should be idempotent. Failure is not cached,
+ * the fallback is returned and next call tries again.
+ */
+public class AtomicLazy<T> implements Value<T> {
+    private static final Object NONE = new Object();
+
+    private final AtomicReference<Object> ref = new AtomicReference<>(NONE);
+
+    private final Provider<? extends T> provider;
+
+    @Getter
+    private final T fallback;
+
+    /**
+     * The last error of provider.
+     */
+    @Getter
+    private volatile Exception error;
+
+    public AtomicLazy(Provider<? extends T> provider) {
+        this(provider, null);
+    }
+
+    public AtomicLazy(@NonNull Provider<? extends T> provider, T fallback) {
+        this.provider = provider;
+        this.fallback = fallback;
+    }
+
+    public boolean isInitialized() {
+        return ref.get() != NONE;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final T get() {
+        Object value = ref.get();
+        if (value == NONE) {
+            try {
+                val result = provider.provide();
+                if (ref.compareAndSet(NONE, result) || (value = ref.get()) == NONE) { // won or reset meanwhile
+                    value = result;
+                }
+                error = null;
+            } catch (Exception e) {
+                error = e;
+                return fallback;
+            }
+        }
+        return (T) value;
+    }
+
+    /**
+     * Drops the value, next {@link #get()} calls the provider again.
+     */
+    public void reset() {
+        ref.set(NONE);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 Peng Wan <phylame@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pw.phylame.commons.value;
+
+import lombok.Getter;
+import lombok.NonNull;
+import pw.phylame.commons.function.Provider;
+import pw.phylame.commons.util.Validate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lazy value that is provided again after time to live elapsed or {@link #reset()}.
+ * <p>
+ * Reading a fresh value takes no lock, refreshing is done by one thread while others wait.
+ * Failure of provider is cached for the same time to live, with the fallback as value.
+ */
+public class ExpiringLazy<T> implements Value<T> {
+    private final Provider<? extends T> provider;
+
+    @Getter
+    private final T fallback;
+
+    private final long ttlNanos;
+
+    private volatile Entry<T> entry;
+
+    public ExpiringLazy(Provider<? extends T> provider, long ttl, TimeUnit unit) {
+        this(provider, null, ttl, unit);
+    }
+
+    /**
+     * Constructs lazy value with time to live.
+     *
+     * @param provider the provider of value
+     * @param fallback value used when provider fails
+     * @param ttl      time to live of provided value, {@literal 0} for never expired
+     * @param unit     unit of {@code ttl}
+     */
+    public ExpiringLazy(@NonNull Provider<? extends T> provider, T fallback, long ttl, @NonNull TimeUnit unit) {
+        Validate.require(ttl >= 0, "ttl < 0");
+        this.provider = provider;
+        this.fallback = fallback;
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    public boolean isInitialized() {
+        return isFresh(entry);
+    }
+
+    /**
+     * Returns error of the current value, {@code null} if provided successfully.
+     */
+    public Exception getError() {
+        Entry<T> e = entry;
+        return e != null ? e.error : null;
+    }
+
+    @Override
+    public final T get() {
+        Entry<T> e = entry;
+        if (!isFresh(e)) {
+            synchronized (this) {
+                e = entry;
+                if (!isFresh(e)) {
+                    entry = e = load();
+                }
+            }
+        }
+        return e.value;
+    }
+
+    /**
+     * Drops the value, next {@link #get()} calls the provider again.
+     */
+    public void reset() {
+        entry = null;
+    }
+
+    private boolean isFresh(Entry<T> e) {
+        return e != null && (ttlNanos == 0 || System.nanoTime() - e.expiresAt < 0);
+    }
+
+    private Entry<T> load() {
+        T value;
+        Exception error = null;
+        try {
+            value = provider.provide();
+        } catch (Exception e) {
+            value = fallback;
+            error = e;
+        }
+        return new Entry<>(value, error, System.nanoTime() + ttlNanos);
+    }
+
+    private static final class Entry<T> {
+        private final T value;
+
+        private final Exception error;
+
+        private final long expiresAt;
+
+        Entry(T value, Exception error, long expiresAt) {
+            this.value = value;
+            this.error = error;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -18,21 +18,28 @@ package pw.phylame.commons.value;
 
 import lombok.Getter;
 import lombok.NonNull;
+import lombok.val;
 import pw.phylame.commons.function.Provider;
 
+/**
+ * Value initialized by provider when first requested.
+ * <p>
+ * The provider is called once under lock, if it fails the fallback is used until {@link #reset()}.
+ *
+ * @see AtomicLazy
+ * @see ExpiringLazy
+ * @see AsyncLazy
+ */
 public class Lazy<T> implements Value<T> {
-    @Getter
-    protected volatile boolean initialized = false;
-
     private final Provider<? extends T> provider;
 
-    @Getter
-    protected Exception error;
-
     @Getter
     private final T fallback;
 
-    protected T value;
+    /**
+     * Value and error published together, {@code null} if not initialized.
+     */
+    private volatile Holder<T> holder;
 
     public Lazy(Provider<? extends T> provider) {
         this(provider, null);
@@ -43,21 +50,72 @@ public class Lazy<T> implements Value<T> {
         this.fallback = fallback;
     }
 
+    public boolean isInitialized() {
+        return holder != null;
+    }
+
+    /**
+     * Returns error of provider, {@code null} if not initialized or provided successfully.
+     */
+    public Exception getError() {
+        Holder<T> h = holder;
+        return h != null ? h.error : null;
+    }
+
     @Override
     public final T get() {
-        if (!initialized) {
+        Holder<T> h = holder;
+        if (h == null) {
             synchronized (this) {
-                if (!initialized) {
+                h = holder;
+                if (h == null) {
                     try {
-                        value = provider.provide();
+                        T value = provider.provide();
+                        h = new Holder<>(value, null);
                     } catch (Exception e) {
-                        value = fallback;
-                        error = e;
+                        h = new Holder<>(fallback, e);
                     }
-                    initialized = true;
+                    holder = h;
                 }
             }
         }
-        return value;
+        return h.value;
+    }
+
+    /**
+     * Returns current value for subclasses, {@code null} if not initialized.
+     */
+    protected final T value() {
+        Holder<T> h = holder;
+        return h != null ? h.value : null;
+    }
+
+    /**
+     * Drops the value or error, next {@link #get()} calls the provider again.
+     */
+    public synchronized void reset() {
+        holder = null;
+    }
+
+    /**
+     * Replaces the value and clears the error.
+     *
+     * @return the previous value, {@code null} if not initialized
+     */
+    protected final synchronized T replace(T value) {
+        val prev = holder;
+        holder = new Holder<>(value, null);
+        return prev != null ? prev.value : null;
+    }
+
+    private static final class Holder<T> {
+        private final T value;
+
+        private final Exception error;
+
+        Holder(T value, Exception error) {
+            this.value = value;
+            this.error = error;
+        }
     }
 }
@@ -16,7 +16,6 @@
 
 package pw.phylame.commons.value;
 
-import lombok.val;
 import pw.phylame.commons.function.Provider;
 
 public class MutableLazy<T> extends Lazy<T> implements MutableValue<T> {
@@ -30,10 +29,6 @@ public class MutableLazy<T> extends Lazy<T> implements MutableValue<T> {
 
     @Override
     public final T set(T value) {
-        val prev = this.value;
-        initialized = true;
-        this.value = value;
-        this.error = null;
-        return prev;
+        return replace(value);
     }
 }
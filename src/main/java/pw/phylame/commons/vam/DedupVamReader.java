@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017 Peng Wan <phylame@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pw.phylame.commons.vam;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.val;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static pw.phylame.commons.vam.DedupVamWriter.REFS_ENTRY;
+
+/**
+ * Decorator of {@code VamReader} that resolves items referenced by {@link DedupVamWriter}.
+ */
+public class DedupVamReader implements VamReader {
+    private final VamReader reader;
+
+    private final Map<String, String> refs = new LinkedHashMap<>();
+
+    /**
+     * Whether the underlying reader contains {@value DedupVamWriter#REFS_ENTRY}, which is hidden.
+     */
+    private final boolean hasRefsEntry;
+
+    public DedupVamReader(@NonNull VamReader reader) throws IOException {
+        this.reader = reader;
+        val item = reader.itemFor(REFS_ENTRY);
+        hasRefsEntry = item != null;
+        if (item != null) {
+            val prop = new Properties();
+            try (val in = reader.streamOf(item)) {
+                prop.load(in);
+            }
+            for (val name : prop.stringPropertyNames()) {
+                val origin = prop.getProperty(name);
+                // keep only resolvable references, so size() agrees with items()
+                if (reader.itemFor(name) == null && reader.itemFor(origin) != null) {
+                    refs.put(name, origin);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return reader.getName();
+    }
+
+    @Override
+    public String getComment() {
+        return reader.getComment();
+    }
+
+    @Override
+    public int size() {
+        return hasRefsEntry ? reader.size() - 1 + refs.size() : reader.size();
+    }
+
+    @Override
+    public VamItem itemFor(@NonNull String name) {
+        if (name.equals(REFS_ENTRY)) {
+            return null;
+        }
+        val item = reader.itemFor(name);
+        if (item != null) {
+            return item;
+        }
+        val origin = refs.get(name);
+        return origin != null ? refItem(name, origin) : null;
+    }
+
+    @Override
+    public Iterable<? extends VamItem> items() {
+        if (!hasRefsEntry) {
+            return reader.items();
+        }
+        val items = new ArrayList<VamItem>(size());
+        for (val item : reader.items()) {
+            if (!item.getName().equals(REFS_ENTRY)) {
+                items.add(item);
+            }
+        }
+        for (val e : refs.entrySet()) {
+            val item = refItem(e.getKey(), e.getValue());
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    @Override
+    public InputStream streamOf(@NonNull VamItem item) throws IOException {
+        return reader.streamOf(item instanceof RefItem ? ((RefItem) item).origin : item);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private RefItem refItem(String name, String originName) {
+        val origin = reader.itemFor(originName);
+        return origin != null ? new RefItem(name, origin) : null;
+    }
+
+    @Override
+    public String toString() {
+        return "dedup:" + reader;
+    }
+
+    private static class RefItem implements VamItem {
+        @Getter
+        private final String name;
+
+        private final VamItem origin;
+
+        private RefItem(String name, VamItem origin) {
+            this.name = name;
+            this.origin = origin;
+        }
+
+        @Override
+        public String getComment() {
+            return origin.getComment();
+        }
+
+        @Override
+        public boolean isDirectory() {
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return name + " -> " + origin;
+        }
+    }
+}
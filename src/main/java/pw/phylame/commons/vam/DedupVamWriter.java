@@ -0,0 +1,251 @@
+/*
+ * Copyright 2017 Peng Wan <phylame@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pw.phylame.commons.vam;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.val;
+import pw.phylame.commons.io.ByteBuilder;
+import pw.phylame.commons.io.IOUtils;
+import pw.phylame.commons.util.Exceptions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Decorator of {@code VamWriter} that stores each unique content only once.
+ * <p>
+ * Bytes of each item are hashed while writing, an item with same content of a previous
+ * item is linked to the previous one instead of being written again:
+ * <ul>
+ * <li>for {@link FileVamWriter} the duplicate is created as hard link of the previous file</li>
+ * <li>for other writers the duplicate is recorded in entry {@value #REFS_ENTRY} which
+ * is resolved by {@link DedupVamReader}</li>
+ * </ul>
+ * Content of item opened by {@link #begin(VamItem)} is buffered until {@link #end(VamItem)}.
+ */
+public class DedupVamWriter implements VamWriter {
+    /**
+     * Name of entry holding references of duplicate items.
+     */
+    public static final String REFS_ENTRY = "__refs__";
+
+    public static final String DEFAULT_ALGORITHM = "SHA-1";
+
+    private final VamWriter writer;
+
+    /**
+     * Prototype of digest, never updated, cloned for each item.
+     */
+    private final MessageDigest digest;
+
+    private final Map<ByteBuffer, VamItem> origins = new HashMap<>();
+
+    private final Map<String, String> refs = new LinkedHashMap<>();
+
+    /**
+     * Items opened by {@link #begin(VamItem)}, keyed by name as callers may end with an equal item.
+     */
+    private final Map<String, Pending> buffers = new LinkedHashMap<>();
+
+    /**
+     * Number of items written to this writer.
+     */
+    @Getter
+    private int itemCount = 0;
+
+    /**
+     * Number of items with unique content.
+     */
+    @Getter
+    private int uniqueCount = 0;
+
+    /**
+     * Total bytes of all items.
+     */
+    @Getter
+    private long totalBytes = 0L;
+
+    /**
+     * Bytes actually written to underlying writer.
+     */
+    @Getter
+    private long storedBytes = 0L;
+
+    public DedupVamWriter(@NonNull VamWriter writer) {
+        this(writer, DEFAULT_ALGORITHM);
+    }
+
+    public DedupVamWriter(@NonNull VamWriter writer, @NonNull String algorithm) {
+        this.writer = writer;
+        try {
+            digest = MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw Exceptions.forIllegalArgument("Unsupported digest algorithm: %s", algorithm);
+        }
+    }
+
+    /**
+     * Returns ratio of saved bytes to total bytes, {@literal 0} if nothing written.
+     *
+     * @return the ratio in range [0, 1]
+     */
+    public double getDedupRatio() {
+        return totalBytes != 0 ? (double) (totalBytes - storedBytes) / totalBytes : 0D;
+    }
+
+    @Override
+    public void setComment(String comment) {
+        writer.setComment(comment);
+    }
+
+    @Override
+    public OutputStream begin(@NonNull VamItem item) throws IOException {
+        if (buffers.containsKey(item.getName())) {
+            throw Exceptions.forIllegalState("Item %s is not ended", item.getName());
+        }
+        val pending = new Pending(item, newDigest());
+        buffers.put(item.getName(), pending);
+        return new DigestOutputStream(pending.buffer, pending.digest);
+    }
+
+    @Override
+    public void end(@NonNull VamItem item) throws IOException {
+        val pending = buffers.remove(item.getName());
+        if (pending == null) {
+            throw Exceptions.forIllegalState("Item %s is not begun", item.getName());
+        }
+        commit(pending);
+    }
+
+    private void commit(Pending pending) throws IOException {
+        val b = pending.buffer;
+        commit(pending.item, b.getDirectArray(), 0, b.size(), pending.digest.digest());
+    }
+
+    @Override
+    public void write(@NonNull VamItem item, @NonNull byte[] data, int off, int len) throws IOException {
+        val md = newDigest();
+        md.update(data, off, len);
+        commit(item, data, off, len, md.digest());
+    }
+
+    @Override
+    public void write(@NonNull VamItem item, @NonNull byte[] data) throws IOException {
+        write(item, data, 0, data.length);
+    }
+
+    @Override
+    public void write(@NonNull VamItem item, @NonNull InputStream input) throws IOException {
+        val b = new ByteBuilder();
+        val md = newDigest();
+        IOUtils.copy(input, new DigestOutputStream(b, md), -1);
+        commit(item, b.getDirectArray(), 0, b.size(), md.digest());
+    }
+
+    /**
+     * Returns a fresh digest for one item, items opened by {@link #begin(VamItem)} may be written interleaved.
+     */
+    private MessageDigest newDigest() {
+        try {
+            return (MessageDigest) digest.clone();
+        } catch (CloneNotSupportedException e) {
+            try {
+                return MessageDigest.getInstance(digest.getAlgorithm(), digest.getProvider());
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+
+    private void commit(VamItem item, byte[] data, int off, int len, byte[] hash) throws IOException {
+        ++itemCount;
+        totalBytes += len;
+        val key = ByteBuffer.wrap(hash);
+        val origin = origins.get(key);
+        if (origin == null) {
+            writer.write(item, data, off, len);
+            origins.put(key, item);
+            storedBytes += len;
+            ++uniqueCount;
+        } else if (writer instanceof FileVamWriter) {
+            ((FileVamWriter) writer).link(item, origin);
+        } else {
+            refs.put(item.getName(), origin.getName());
+        }
+    }
+
+    @Override
+    public VamItem mkitem(String name) {
+        return writer.mkitem(name);
+    }
+
+    /**
+     * Commits items begun but not ended, writes references and closes the underlying writer.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!buffers.isEmpty()) {
+                val pendings = new ArrayList<Pending>(buffers.values());
+                buffers.clear();
+                for (val pending : pendings) {
+                    commit(pending);
+                }
+            }
+            if (!refs.isEmpty()) {
+                val prop = new Properties();
+                prop.putAll(refs);
+                val out = new ByteArrayOutputStream();
+                prop.store(out, null);
+                writer.write(writer.mkitem(REFS_ENTRY), out.toByteArray());
+                refs.clear();
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "dedup:" + writer;
+    }
+
+    private static class Pending {
+        private final VamItem item;
+
+        private final ByteBuilder buffer = new ByteBuilder();
+
+        private final MessageDigest digest;
+
+        private Pending(VamItem item, MessageDigest digest) {
+            this.item = item;
+            this.digest = digest;
+        }
+    }
+}
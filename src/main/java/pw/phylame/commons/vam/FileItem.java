@@ -33,6 +33,11 @@ public class FileItem implements VamItem {
     @Getter(AccessLevel.PACKAGE)
     private final WeakReference<? extends FileVamReader> archive;
 
+    /**
+     * Name of the item, relative path separated by {@literal /}.
+     */
+    private final String name;
+
     public FileItem(@NonNull String name) {
         this(new File(name), null);
         init();
@@ -44,7 +49,12 @@ public class FileItem implements VamItem {
     }
 
     FileItem(@NonNull File file, FileVamReader archive) {
+        this(file, file.getPath().replace(File.separatorChar, '/'), archive);
+    }
+
+    FileItem(@NonNull File file, @NonNull String name, FileVamReader archive) {
         this.file = file;
+        this.name = name;
         this.archive = archive != null ? new WeakReference<>(archive) : null;
     }
 
@@ -56,7 +66,7 @@ public class FileItem implements VamItem {
 
     @Override
     public String getName() {
-        return file.getName();
+        return name;
     }
 
     @Override
@@ -73,7 +73,7 @@ public class FileVamReader implements VamReader {
     @Override
     public FileItem itemFor(@NonNull String name) {
         val item = new File(file, name);
-        return item.exists() ? new FileItem(item, this) : null;
+        return item.exists() ? new FileItem(item, name, this) : null;
     }
 
     @Override
@@ -92,7 +92,7 @@ public class FileVamReader implements VamReader {
             @Override
             public void consume(File value) {
                 if (!value.getName().equals(FileItem.COMMENT_FILE)) {
-                    items.add(new FileItem(value, FileVamReader.this));
+                    items.add(new FileItem(value, nameOf(value), FileVamReader.this));
                 }
             }
         });
@@ -106,6 +106,10 @@ public class FileVamReader implements VamReader {
         return counter.count;
     }
 
+    private String nameOf(File item) {
+        return item.getPath().substring(file.getPath().length() + 1).replace(File.separatorChar, '/');
+    }
+
     private void walkDir(File dir, Consumer<File> consumer) {
         val items = dir.listFiles();
         if (items == null) {
@@ -23,6 +23,8 @@ import pw.phylame.commons.log.Log;
 import pw.phylame.commons.util.Exceptions;
 
 import java.io.*;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
 import java.util.IdentityHashMap;
 import java.util.Map;
 
@@ -68,13 +70,18 @@ public class FileVamWriter implements VamWriter {
     }
 
     private FileOutputStream openOutput(String name) throws IOException {
-        if (!file.mkdirs()) {
-            throw new IOException("Cannot create dir " + file.getPath());
-        }
         val file = new File(this.file, name);
+        ensureParent(file);
         return new FileOutputStream(file);
     }
 
+    private void ensureParent(File file) throws IOException {
+        val dir = file.getParentFile();
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw Exceptions.forIO("Cannot create directory: %s", dir);
+        }
+    }
+
     private String itemKey(FileItem item) {
         return item.getFile().getPath();
     }
@@ -117,6 +124,29 @@ public class FileVamWriter implements VamWriter {
         }
     }
 
+    /**
+     * Creates item as hard link of another item written by this writer.
+     * <p>
+     * The content will be copied if hard link is not supported.
+     *
+     * @param item   the new item
+     * @param origin the existing item
+     * @throws IOException if occur I/O errors
+     */
+    public void link(@NonNull VamItem item, @NonNull VamItem origin) throws IOException {
+        val source = new File(file, ((FileItem) origin).getFile().getPath());
+        val target = new File(file, ((FileItem) item).getFile().getPath());
+        ensureParent(target);
+        val path = target.toPath();
+        Files.deleteIfExists(path);
+        try {
+            Files.createLink(path, source.toPath());
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            Log.d(TAG, "cannot link {0} to {1}, copy instead", target, source);
+            IOUtils.copyFile(source, target);
+        }
+    }
+
     @Override
     public FileItem mkitem(@NonNull String name) {
         return new FileItem(name);
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 Peng Wan <phylame@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pw.phylame.commons.vam;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+
+public class MemoryItem implements VamItem {
+    @Getter
+    private final String name;
+
+    @Getter
+    @Setter
+    private String comment;
+
+    /**
+     * Offset of the content in slab.
+     */
+    int offset = -1;
+
+    /**
+     * Length of the content in bytes.
+     */
+    @Getter
+    int length = 0;
+
+    public MemoryItem(@NonNull String name) {
+        this.name = name;
+    }
+
+    MemoryItem(String name, String comment, int offset, int length) {
+        this.name = name;
+        this.comment = comment;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "mem:" + name;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017 Peng Wan <phylame@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pw.phylame.commons.vam;
+
+import lombok.NonNull;
+import lombok.val;
+import pw.phylame.commons.function.Prediction;
+import pw.phylame.commons.io.ByteBuilder;
+import pw.phylame.commons.io.IOUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory {@code VamReader}.
+ * <p>
+ * Content of all items is kept in one byte slab, {@link #streamOf(VamItem)} returns
+ * view of the slab without copying.
+ */
+public class MemoryVamReader implements VamReader {
+    private final String name;
+
+    private final String comment;
+
+    private final byte[] slab;
+
+    private final Map<String, MemoryItem> items;
+
+    /**
+     * Loads all items of specified reader into memory.
+     *
+     * @param reader the source reader
+     * @throws IOException if occur I/O errors
+     */
+    public MemoryVamReader(@NonNull VamReader reader) throws IOException {
+        this(reader, null);
+    }
+
+    /**
+     * Loads items of specified reader into memory.
+     *
+     * @param reader the source reader
+     * @param filter filter for item names, {@code null} to load all items
+     * @throws IOException if occur I/O errors
+     */
+    public MemoryVamReader(@NonNull VamReader reader, Prediction<? super String> filter) throws IOException {
+        name = reader.getName();
+        comment = reader.getComment();
+        items = new LinkedHashMap<>();
+        val b = new ByteBuilder();
+        for (val item : reader.items()) {
+            val path = item.getName();
+            if (item.isDirectory() || (filter != null && !filter.test(path))) {
+                continue;
+            }
+            val offset = b.size();
+            try (val in = reader.streamOf(item)) {
+                IOUtils.copy(in, b, -1);
+            }
+            items.put(path, new MemoryItem(path, item.getComment(), offset, b.size() - offset));
+        }
+        slab = b.getDirectArray();
+    }
+
+    MemoryVamReader(String name, String comment, byte[] slab, Map<String, MemoryItem> items) {
+        this.name = name;
+        this.comment = comment;
+        this.slab = slab;
+        this.items = items;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getComment() {
+        return comment;
+    }
+
+    @Override
+    public int size() {
+        return items.size();
+    }
+
+    @Override
+    public MemoryItem itemFor(@NonNull String name) {
+        return items.get(name);
+    }
+
+    @Override
+    public Iterable<? extends MemoryItem> items() {
+        return Collections.unmodifiableCollection(items.values());
+    }
+
+    @Override
+    public InputStream streamOf(@NonNull VamItem item) throws IOException {
+        val mi = items.get(item.getName());
+        return mi != null ? new ByteArrayInputStream(slab, mi.offset, mi.length) : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+
+    }
+
+    @Override
+    public String toString() {
+        return "mem://" + name;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017 Peng Wan <phylame@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pw.phylame.commons.vam;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.val;
+import pw.phylame.commons.io.ByteBuilder;
+import pw.phylame.commons.io.IOUtils;
+import pw.phylame.commons.util.Exceptions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory {@code VamWriter}.
+ * <p>
+ * Items written are kept in memory, use {@link #toReader()} to read them directly or
+ * {@link #writeTo(VamWriter)} to persist them with another writer.
+ */
+public class MemoryVamWriter implements VamWriter {
+    @Getter
+    private final String name;
+
+    @Getter
+    private String comment;
+
+    private final ByteBuilder slab;
+
+    private final Map<String, MemoryItem> items = new LinkedHashMap<>();
+
+    private MemoryItem current;
+
+    public MemoryVamWriter() {
+        this("memory", IOUtils.DEFAULT_BUFFER_SIZE);
+    }
+
+    public MemoryVamWriter(@NonNull String name, int initialSize) {
+        this.name = name;
+        this.slab = new ByteBuilder(initialSize);
+    }
+
+    @Override
+    public void setComment(String comment) {
+        this.comment = comment;
+    }
+
+    @Override
+    public OutputStream begin(@NonNull VamItem item) throws IOException {
+        checkEnded();
+        current = new MemoryItem(item.getName(), item.getComment(), slab.size(), 0);
+        return slab;
+    }
+
+    @Override
+    public void end(@NonNull VamItem item) throws IOException {
+        if (current == null || !current.getName().equals(item.getName())) {
+            return;
+        }
+        current.length = slab.size() - current.offset;
+        items.put(current.getName(), current);
+        current = null;
+    }
+
+    @Override
+    public void write(@NonNull VamItem item, @NonNull byte[] data, int off, int len) throws IOException {
+        checkEnded();
+        val offset = slab.size();
+        slab.write(data, off, len);
+        items.put(item.getName(), new MemoryItem(item.getName(), item.getComment(), offset, len));
+    }
+
+    @Override
+    public void write(@NonNull VamItem item, @NonNull byte[] data) throws IOException {
+        write(item, data, 0, data.length);
+    }
+
+    @Override
+    public void write(@NonNull VamItem item, @NonNull InputStream input) throws IOException {
+        checkEnded();
+        val offset = slab.size();
+        IOUtils.copy(input, slab, -1);
+        items.put(item.getName(), new MemoryItem(item.getName(), item.getComment(), offset, slab.size() - offset));
+    }
+
+    /**
+     * Items share one buffer, so nothing else can be written while an item is begun.
+     */
+    private void checkEnded() {
+        if (current != null) {
+            throw Exceptions.forIllegalState("Item %s is not ended", current.getName());
+        }
+    }
+
+    @Override
+    public MemoryItem mkitem(@NonNull String name) {
+        return new MemoryItem(name);
+    }
+
+    /**
+     * Returns number of bytes written.
+     *
+     * @return the size in bytes
+     */
+    public int getByteCount() {
+        return slab.size();
+    }
+
+    /**
+     * Returns snapshot of items written, content is shared with this writer.
+     *
+     * @return the reader
+     */
+    public MemoryVamReader toReader() {
+        return new MemoryVamReader(name, comment, slab.getDirectArray(), new LinkedHashMap<>(items));
+    }
+
+    /**
+     * Writes all items to specified writer.
+     *
+     * @param writer the output writer
+     * @throws IOException if occur I/O errors
+     */
+    public void writeTo(@NonNull VamWriter writer) throws IOException {
+        if (comment != null) {
+            writer.setComment(comment);
+        }
+        val data = slab.getDirectArray();
+        for (val item : items.values()) {
+            writer.write(writer.mkitem(item.getName()), data, item.offset, item.length);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+
+    }
+
+    @Override
+    public String toString() {
+        return "mem://" + name;
+    }
+}
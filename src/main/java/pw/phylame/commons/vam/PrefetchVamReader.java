@@ -0,0 +1,366 @@
+/*
+ * Copyright 2017 Peng Wan <phylame@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pw.phylame.commons.vam;
+
+import lombok.NonNull;
+import lombok.val;
+import pw.phylame.commons.io.ByteBuilder;
+import pw.phylame.commons.io.IOUtils;
+import pw.phylame.commons.log.Log;
+import pw.phylame.commons.util.Validate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decorator of {@code VamReader} that reads ahead items while iterating.
+ * <p>
+ * When iterating {@link #items()}, content of next {@code depth} items are loaded by
+ * background executor, {@link #streamOf(VamItem)} for these items returns the loaded bytes.
+ * Bytes are reserved from the memory budget while loading, read-ahead pauses when the budget
+ * is used up and resumes after loaded items are read or dropped. An item that cannot fit in
+ * the budget is read from the underlying reader directly. Prefetched content of an item is
+ * dropped when the iteration moves past it without reading it.
+ */
+public class PrefetchVamReader implements VamReader {
+    private static final String TAG = "PVR";
+
+    public static final int DEFAULT_DEPTH = 4;
+
+    public static final long DEFAULT_BUDGET = 16L << 20;
+
+    private final VamReader reader;
+
+    private final int depth;
+
+    private final long budget;
+
+    private final ExecutorService executor;
+
+    private final boolean ownExecutor;
+
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    private final Map<VamItem, Load> loads = new ConcurrentHashMap<>();
+
+    private final Queue<ByteBuilder> pool = new ConcurrentLinkedQueue<>();
+
+    public PrefetchVamReader(@NonNull VamReader reader) {
+        this(reader, DEFAULT_DEPTH, DEFAULT_BUDGET, null);
+    }
+
+    public PrefetchVamReader(@NonNull VamReader reader, int depth, long budget) {
+        this(reader, depth, budget, null);
+    }
+
+    /**
+     * Constructs reader with specified read-ahead options.
+     *
+     * @param reader   the underlying reader
+     * @param depth    number of items to read ahead
+     * @param budget   max bytes of loaded content
+     * @param executor executor for loading items, if {@code null} a daemon thread is created
+     *                 and shutdown when closing the reader
+     */
+    public PrefetchVamReader(@NonNull VamReader reader, int depth, long budget, ExecutorService executor) {
+        Validate.require(depth > 0, "depth <= 0");
+        Validate.require(budget > 0, "budget <= 0");
+        this.reader = reader;
+        this.depth = depth;
+        this.budget = budget;
+        if (executor == null) {
+            this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    val thread = new Thread(r, "vam-prefetch");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            ownExecutor = true;
+        } else {
+            this.executor = executor;
+            ownExecutor = false;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return reader.getName();
+    }
+
+    @Override
+    public String getComment() {
+        return reader.getComment();
+    }
+
+    @Override
+    public int size() {
+        return reader.size();
+    }
+
+    @Override
+    public VamItem itemFor(String name) {
+        return reader.itemFor(name);
+    }
+
+    @Override
+    public Iterable<? extends VamItem> items() {
+        return new Iterable<VamItem>() {
+            @Override
+            public Iterator<VamItem> iterator() {
+                return new PrefetchIterator(reader.items().iterator());
+            }
+        };
+    }
+
+    @Override
+    public InputStream streamOf(@NonNull VamItem item) throws IOException {
+        val load = loads.remove(item);
+        if (load != null) {
+            try {
+                val b = load.future.get();
+                if (b != null) {
+                    return new BufferStream(b);
+                }
+            } catch (InterruptedException e) {
+                load.future.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(e.getMessage());
+            } catch (ExecutionException e) {
+                Log.d(TAG, "failed to prefetch {0}: {1}", item, e.getCause());
+            } catch (CancellationException ignored) {
+            } finally {
+                load.release();
+            }
+        }
+        return reader.streamOf(item);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (val item : loads.keySet()) {
+            discard(item);
+        }
+        if (ownExecutor) {
+            executor.shutdownNow();
+        }
+        pool.clear();
+        reader.close();
+    }
+
+    /**
+     * Starts loading the item.
+     *
+     * @return {@literal false} if the budget is used up and the item should be scheduled later
+     */
+    private boolean schedule(VamItem item) {
+        if (item.isDirectory()) {
+            return true;
+        }
+        if (usedBytes.get() >= budget) {
+            return false;
+        }
+        val load = new Load(item);
+        loads.put(item, load);
+        try {
+            executor.execute(load.future);
+        } catch (RejectedExecutionException e) {
+            loads.remove(item);
+            Log.d(TAG, "prefetch rejected: {0}", item);
+        }
+        return true;
+    }
+
+    private void discard(VamItem item) {
+        val load = loads.remove(item);
+        if (load == null) {
+            return;
+        }
+        if (!load.future.cancel(true) && load.future.isDone()) {
+            try {
+                val b = load.future.get();
+                if (b != null) {
+                    recycle(b);
+                }
+            } catch (InterruptedException | ExecutionException | CancellationException ignored) {
+            }
+        }
+        load.release(); // also covers bytes reserved by a cancelled load
+    }
+
+    private ByteBuilder obtain() {
+        val b = pool.poll();
+        return b != null ? b : new ByteBuilder();
+    }
+
+    private void recycle(ByteBuilder b) {
+        b.reset();
+        if (pool.size() < depth) {
+            pool.offer(b);
+        }
+    }
+
+    /**
+     * Loading task of an item, bytes reserved from budget are tracked until released.
+     */
+    private class Load implements Callable<ByteBuilder> {
+        private final VamItem item;
+
+        private final AtomicLong reserved = new AtomicLong();
+
+        private final FutureTask<ByteBuilder> future = new FutureTask<>(this);
+
+        Load(VamItem item) {
+            this.item = item;
+        }
+
+        /**
+         * Returns loaded bytes, or {@code null} if the item does not fit in the budget or is cancelled.
+         */
+        @Override
+        public ByteBuilder call() throws Exception {
+            val b = obtain();
+            boolean loaded = false;
+            try (val in = reader.streamOf(item)) {
+                val buf = new byte[IOUtils.DEFAULT_BUFFER_SIZE];
+                int n;
+                while ((n = in.read(buf)) != -1) {
+                    if (future.isCancelled() || !reserve(n)) {
+                        return null;
+                    }
+                    b.append(buf, 0, n);
+                }
+                loaded = true;
+                return b;
+            } finally {
+                if (!loaded || future.isCancelled()) {
+                    release();
+                    recycle(b);
+                }
+            }
+        }
+
+        private boolean reserve(int n) {
+            if (usedBytes.addAndGet(n) > budget) {
+                usedBytes.addAndGet(-n);
+                return false;
+            }
+            reserved.addAndGet(n);
+            return true;
+        }
+
+        /**
+         * Returns reserved bytes to the budget, can be called more than once.
+         */
+        void release() {
+            val n = reserved.getAndSet(0);
+            if (n != 0) {
+                usedBytes.addAndGet(-n);
+            }
+        }
+    }
+
+    private class PrefetchIterator implements Iterator<VamItem> {
+        private final Iterator<? extends VamItem> source;
+
+        private final ArrayDeque<VamItem> ahead = new ArrayDeque<>();
+
+        /**
+         * Items in {@code ahead} not scheduled yet because of budget, in same order.
+         */
+        private final ArrayDeque<VamItem> waiting = new ArrayDeque<>();
+
+        private VamItem current;
+
+        PrefetchIterator(Iterator<? extends VamItem> source) {
+            this.source = source;
+        }
+
+        private void fill() {
+            while (!waiting.isEmpty() && schedule(waiting.peek())) {
+                waiting.poll();
+            }
+            while (ahead.size() <= depth && source.hasNext()) {
+                val item = source.next();
+                ahead.offer(item);
+                if (!waiting.isEmpty() || !schedule(item)) {
+                    waiting.offer(item);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            fill();
+            return !ahead.isEmpty();
+        }
+
+        @Override
+        public VamItem next() {
+            if (current != null) {
+                discard(current);
+                current = null;
+            }
+            fill();
+            if (ahead.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            current = ahead.poll();
+            if (waiting.peek() == current) {
+                waiting.poll();
+            }
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private class BufferStream extends ByteArrayInputStream {
+        private ByteBuilder b;
+
+        BufferStream(ByteBuilder b) {
+            super(b.getDirectArray(), 0, b.size());
+            this.b = b;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (b != null) {
+                recycle(b);
+                b = null;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "prefetch:" + reader;
+    }
+}
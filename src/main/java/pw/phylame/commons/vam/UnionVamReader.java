@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017 Peng Wan <phylame@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pw.phylame.commons.vam;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.val;
+import pw.phylame.commons.util.Validate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * Union of several {@code VamReader}s.
+ * <p>
+ * The readers are layered in priority order, an item in former reader hides items with
+ * same name in latter readers. Index of names is built when constructing, so
+ * {@link #itemFor(String)}, {@link #items()} and {@link #size()} do not access the layers.
+ */
+public class UnionVamReader implements VamReader {
+    private final List<VamReader> readers;
+
+    private final Map<String, UnionItem> index = new LinkedHashMap<>();
+
+    public UnionVamReader(@NonNull VamReader... readers) {
+        this(Arrays.asList(readers));
+    }
+
+    public UnionVamReader(@NonNull List<? extends VamReader> readers) {
+        Validate.require(!readers.isEmpty(), "readers cannot be empty");
+        this.readers = new ArrayList<>(readers);
+        for (val reader : this.readers) {
+            for (val item : reader.items()) {
+                val name = item.getName();
+                if (!index.containsKey(name)) {
+                    index.put(name, new UnionItem(item, reader));
+                }
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return readers.get(0).getName();
+    }
+
+    @Override
+    public String getComment() {
+        for (val reader : readers) {
+            val comment = reader.getComment();
+            if (comment != null) {
+                return comment;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public UnionItem itemFor(@NonNull String name) {
+        return index.get(name);
+    }
+
+    @Override
+    public Iterable<? extends UnionItem> items() {
+        return Collections.unmodifiableCollection(index.values());
+    }
+
+    @Override
+    public InputStream streamOf(@NonNull VamItem item) throws IOException {
+        if (!(item instanceof UnionItem)) {
+            item = index.get(item.getName());
+            if (item == null) {
+                return null;
+            }
+        }
+        val ui = (UnionItem) item;
+        return ui.reader.streamOf(ui.item);
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException error = null;
+        for (val reader : readers) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+        }
+        index.clear();
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "union:" + readers;
+    }
+
+    public static class UnionItem implements VamItem {
+        /**
+         * The item in underlying reader.
+         */
+        @Getter
+        private final VamItem item;
+
+        private final VamReader reader;
+
+        private UnionItem(VamItem item, VamReader reader) {
+            this.item = item;
+            this.reader = reader;
+        }
+
+        @Override
+        public String getName() {
+            return item.getName();
+        }
+
+        @Override
+        public String getComment() {
+            return item.getComment();
+        }
+
+        @Override
+        public boolean isDirectory() {
+            return item.isDirectory();
+        }
+
+        @Override
+        public String toString() {
+            return item.toString();
+        }
+    }
+}
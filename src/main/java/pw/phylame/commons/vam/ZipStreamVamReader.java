@@ -0,0 +1,212 @@
+/*
+ * Copyright 2017 Peng Wan <phylame@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pw.phylame.commons.vam;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.val;
+import pw.phylame.commons.util.Exceptions;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Single-pass {@code VamReader} for ZIP data from non-seekable input, such as socket or pipe.
+ * <p>
+ * Entries are processed in the order they arrive:
+ * <ul>
+ * <li>{@link #visit(Visitor)} walks all entries with a visitor</li>
+ * <li>{@link #items()} can be iterated only once, {@link #streamOf(VamItem)} is available
+ * for the current item only</li>
+ * </ul>
+ * Random access methods {@link #itemFor(String)} and {@link #size()} are not supported.
+ */
+public class ZipStreamVamReader implements VamReader {
+    private final String name;
+
+    private final ZipInputStream zip;
+
+    private ZipItem current;
+
+    private boolean started = false;
+
+    public ZipStreamVamReader(@NonNull InputStream in) {
+        this(in, "stream");
+    }
+
+    public ZipStreamVamReader(@NonNull InputStream in, @NonNull String name) {
+        this(new ZipInputStream(in), name);
+    }
+
+    public ZipStreamVamReader(@NonNull ZipInputStream zip, @NonNull String name) {
+        this.zip = zip;
+        this.name = name;
+    }
+
+    public interface Visitor {
+        /**
+         * Tests if content of specified item is required.
+         *
+         * @param item the item
+         * @return {@literal true} to visit the content, otherwise the item is skipped
+         */
+        boolean accept(ZipItem item);
+
+        /**
+         * Visits content of specified item.
+         *
+         * @param item the item
+         * @param in   input of the content, closing it does nothing
+         * @return {@literal false} to stop visiting
+         * @throws IOException if occur I/O errors
+         */
+        boolean visit(ZipItem item, InputStream in) throws IOException;
+    }
+
+    /**
+     * Visits all remaining entries in the input.
+     *
+     * @param visitor the visitor
+     * @return number of visited items
+     * @throws IOException if occur I/O errors
+     */
+    public int visit(@NonNull Visitor visitor) throws IOException {
+        int count = 0;
+        ZipItem item;
+        while ((item = nextItem()) != null) {
+            if (!visitor.accept(item)) {
+                continue;
+            }
+            ++count;
+            if (!visitor.visit(item, new EntryStream())) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    private ZipItem nextItem() throws IOException {
+        started = true;
+        if (current != null) {
+            zip.closeEntry();
+        }
+        val entry = zip.getNextEntry();
+        return current = entry != null ? new ZipItem(entry, null) : null;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Always returns {@code null} as ZIP comment is stored at end of the data.
+     */
+    @Override
+    public String getComment() {
+        return null;
+    }
+
+    @Override
+    public int size() {
+        throw Exceptions.forUnsupportedOperation("size is unknown for stream");
+    }
+
+    @Override
+    public VamItem itemFor(String name) {
+        throw Exceptions.forUnsupportedOperation("random access is unsupported for stream");
+    }
+
+    @Override
+    public Iterable<? extends ZipItem> items() {
+        if (started) {
+            throw Exceptions.forIllegalState("stream is already consumed");
+        }
+        started = true;
+        return new Iterable<ZipItem>() {
+            @Override
+            public Iterator<ZipItem> iterator() {
+                return new EntryIterator();
+            }
+        };
+    }
+
+    @Override
+    public InputStream streamOf(@NonNull VamItem item) throws IOException {
+        if (item != current) {
+            throw Exceptions.forIllegalState("not current item: %s", item);
+        }
+        return new EntryStream();
+    }
+
+    @Override
+    public void close() throws IOException {
+        current = null;
+        zip.close();
+    }
+
+    @Override
+    public String toString() {
+        return "zip-stream://" + name;
+    }
+
+    private class EntryIterator implements Iterator<ZipItem> {
+        private ZipItem next;
+
+        private boolean fetched = false;
+
+        @Override
+        @SneakyThrows(IOException.class)
+        public boolean hasNext() {
+            if (!fetched) {
+                next = nextItem();
+                fetched = true;
+            }
+            return next != null;
+        }
+
+        @Override
+        public ZipItem next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            fetched = false;
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private class EntryStream extends FilterInputStream {
+        EntryStream() {
+            super(zip);
+        }
+
+        @Override
+        public void close() throws IOException {
+            // keep the zip opened for next entry
+        }
+    }
+}
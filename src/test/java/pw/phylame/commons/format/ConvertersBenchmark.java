@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 Peng Wan <phylame@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pw.phylame.commons.format;
+
+import java.util.Random;
+
+/**
+ * Timing comparison of range parsing in {@link Converters} and parsing substrings with JDK methods.
+ * <p>
+ * Parses columns of generated CSV lines, about one in ten columns is malformed.
+ * Run with {@code java -cp <classes> pw.phylame.commons.format.ConvertersBenchmark [lines] [rounds]}.
+ */
+public final class ConvertersBenchmark {
+    private static final int COLUMNS = 4;
+
+    private ConvertersBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        String[] data = generate(lines, new Random(17));
+        if (jdk(data) != ranges(data)) {
+            throw new IllegalStateException("results of two paths differ");
+        }
+        long sink = 0;
+        for (int i = 0; i < 3; ++i) { // warm up
+            sink += jdk(data) + ranges(data);
+        }
+        long jdkNanos = 0, rangeNanos = 0;
+        for (int i = 0; i < rounds; ++i) {
+            long start = System.nanoTime();
+            sink += jdk(data);
+            jdkNanos += System.nanoTime() - start;
+            start = System.nanoTime();
+            sink += ranges(data);
+            rangeNanos += System.nanoTime() - start;
+        }
+        double ops = (double) lines * COLUMNS * rounds;
+        System.out.printf("jdk substring + parse: %.1f ns/column%n", jdkNanos / ops);
+        System.out.printf("Converters ranges:     %.1f ns/column%n", rangeNanos / ops);
+        System.out.printf("speedup: %.2fx (checksum %d)%n", (double) jdkNanos / rangeNanos, sink);
+    }
+
+    /**
+     * Generates lines like {@code id,count,price,flag}.
+     */
+    private static String[] generate(int lines, Random random) {
+        String[] data = new String[lines];
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < lines; ++i) {
+            b.setLength(0);
+            b.append(random.nextInt(10) == 0 ? "n/a" : Integer.toString(random.nextInt())).append(',');
+            b.append(random.nextInt(10) == 0 ? "" : Long.toString(random.nextLong())).append(',');
+            b.append(random.nextInt(10) == 0 ? "-" : random.nextInt(100000) / 100.0).append(',');
+            b.append(random.nextInt(10) == 0 ? "yes" : Boolean.toString(random.nextBoolean()));
+            data[i] = b.toString();
+        }
+        return data;
+    }
+
+    private static long jdk(String[] data) {
+        long sum = 0;
+        for (String line : data) {
+            int a = line.indexOf(','), b = line.indexOf(',', a + 1), c = line.indexOf(',', b + 1);
+            try {
+                sum += Integer.parseInt(line.substring(0, a));
+            } catch (NumberFormatException e) {
+                --sum;
+            }
+            try {
+                sum += Long.parseLong(line.substring(a + 1, b));
+            } catch (NumberFormatException e) {
+                --sum;
+            }
+            try {
+                sum += (long) Double.parseDouble(line.substring(b + 1, c));
+            } catch (NumberFormatException e) {
+                --sum;
+            }
+            String flag = line.substring(c + 1);
+            sum += "true".equalsIgnoreCase(flag) ? 1 : "false".equalsIgnoreCase(flag) ? 0 : -1;
+        }
+        return sum;
+    }
+
+    private static long ranges(String[] data) {
+        long sum = 0;
+        for (String line : data) {
+            int a = line.indexOf(','), b = line.indexOf(',', a + 1), c = line.indexOf(',', b + 1);
+            int i = Converters.parseInt(line, 0, a, Integer.MIN_VALUE);
+            sum += i != Integer.MIN_VALUE ? i : -1;
+            long l = Converters.parseLong(line, a + 1, b, Long.MIN_VALUE);
+            sum += l != Long.MIN_VALUE ? l : -1;
+            double d = Converters.parseDouble(line, b + 1, c, Double.NaN);
+            sum += d == d ? (long) d : -1;
+            int flag = Converters.parseBoolean(line, c + 1, line.length(), false) ? 1
+                    : Converters.parseBoolean(line, c + 1, line.length(), true) ? -1 : 0;
+            sum += flag;
+        }
+        return sum;
+    }
+}